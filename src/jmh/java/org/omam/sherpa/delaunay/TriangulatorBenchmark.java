@@ -0,0 +1,133 @@
+package org.omam.sherpa.delaunay;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.omam.sherpa.geometry.CollinearPointsException;
+import org.omam.sherpa.geometry.CoordinatesConverter;
+import org.omam.sherpa.geometry.EarthCoordinates;
+import org.omam.sherpa.geometry.GeometryException;
+import org.omam.sherpa.geometry.Icosahedron;
+import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Triangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the triangulation hot paths on meshes of increasing size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class TriangulatorBenchmark {
+
+    /** cities of {@link EarthCoordinates}, inserted as points. */
+    private static final PositionVector[] CITIES = { EarthCoordinates.BORAS, EarthCoordinates.GOTEBORG,
+            EarthCoordinates.JONKOPING, EarthCoordinates.KALMAR, EarthCoordinates.KATRINEHOLM, EarthCoordinates.LUND,
+            EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING, EarthCoordinates.NORRTALJE,
+            EarthCoordinates.NYKOPING, EarthCoordinates.OREBRO, EarthCoordinates.SKOVDE, EarthCoordinates.SODERHAMN,
+            EarthCoordinates.STOCKHOLM, EarthCoordinates.TRANAS, EarthCoordinates.TROLLHATTAN,
+            EarthCoordinates.UPPSALA, EarthCoordinates.VARA, EarthCoordinates.YSTAD, EarthCoordinates.ESLOV,
+            EarthCoordinates.ROSKILDE, EarthCoordinates.PERTH, EarthCoordinates.DARWIN, EarthCoordinates.BRISBANE,
+            EarthCoordinates.MELBOURNE, EarthCoordinates.ADELAIDE };
+
+    /** obstacle around southern Sweden. */
+    private static final PositionVector[] SWEDEN = { EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG,
+            EarthCoordinates.OREBRO, EarthCoordinates.STOCKHOLM, EarthCoordinates.KALMAR };
+
+    /** obstacle around eastern Australia. */
+    private static final PositionVector[] AUSTRALIA = { EarthCoordinates.ADELAIDE, EarthCoordinates.DARWIN,
+            EarthCoordinates.BRISBANE, EarthCoordinates.MELBOURNE };
+
+    /**
+     * A freshly tessellated triangulation for each invocation of the benchmarks amending it.
+     */
+    @State(Scope.Thread)
+    public static class Mesh {
+
+        @Param({ "3", "4", "5" })
+        public int level;
+
+        private Triangulator triangulator;
+
+        @Setup(Level.Invocation)
+        public void setup() throws GeometryException, TriangulationException {
+            triangulator = new Triangulator(Icosahedron.build());
+            triangulator.tessellate(level);
+        }
+
+    }
+
+    @Param({ "3", "4", "5" })
+    public int level;
+
+    private Triangulator tessellated;
+
+    private TriangulationKernel kernel;
+
+    private PositionVector[] queries;
+
+    @Setup
+    public void setup() throws GeometryException, TriangulationException {
+        tessellated = new Triangulator(Icosahedron.build());
+        tessellated.tessellate(level);
+        kernel = new TriangulationKernel(new ArrayList<Triangle>(tessellated.faces()));
+        final Random random = new Random(0L);
+        queries = new PositionVector[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = CoordinatesConverter.toCartesian(random.nextDouble() * 180.0 - 90.0,
+                    random.nextDouble() * 360.0 - 180.0);
+        }
+    }
+
+    @Benchmark
+    public Triangulator addConstraint(final Mesh mesh) throws GeometryException, TriangulationException {
+        mesh.triangulator.addConstraint("sweden", SWEDEN);
+        mesh.triangulator.addConstraint("australia", AUSTRALIA);
+        return mesh.triangulator;
+    }
+
+    @Benchmark
+    public Triangulator addPoint(final Mesh mesh) throws GeometryException, TriangulationException {
+        for (final PositionVector city : CITIES) {
+            mesh.triangulator.addPoint(city);
+        }
+        return mesh.triangulator;
+    }
+
+    @Benchmark
+    public void face(final Blackhole bh) throws CollinearPointsException {
+        for (final PositionVector query : queries) {
+            bh.consume(kernel.face(query));
+        }
+    }
+
+    @Benchmark
+    public IndexedTriangulation index() {
+        return tessellated.index();
+    }
+
+    @Benchmark
+    public Triangulator subdivide() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.subdivide(level);
+        return triangulator;
+    }
+
+    @Benchmark
+    public Triangulator tessellate() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(level);
+        return triangulator;
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.omam.sherpa.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the {@link PositionVector}, {@link GreatArc} and {@link Triangle} predicates used by
+ * the triangulation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class PredicatesBenchmark {
+
+    private Triangle triangle;
+
+    private GreatArc arc;
+
+    private GreatArc crossing;
+
+    private PositionVector inside;
+
+    private PositionVector onArc;
+
+    @Setup
+    public void setup() throws GeometryException {
+        triangle = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
+        arc = new GreatArc(EarthCoordinates.MELBOURNE, EarthCoordinates.DARWIN);
+        crossing = new GreatArc(EarthCoordinates.PERTH, EarthCoordinates.BRISBANE);
+        inside = EarthCoordinates.NORRKOPING;
+        onArc = arc.midPoint();
+    }
+
+    @Benchmark
+    public boolean circumcircleContains() {
+        return triangle.circumcircleContains(inside);
+    }
+
+    @Benchmark
+    public boolean circumcircleStrictlyContains() {
+        return triangle.circumcircleStrictlyContains(inside);
+    }
+
+    @Benchmark
+    public boolean greatArcContains() {
+        return arc.contains(onArc);
+    }
+
+    @Benchmark
+    public PositionVector greatArcIntersection() {
+        return arc.intersection(crossing, false);
+    }
+
+    @Benchmark
+    public int inCircle() {
+        return Predicates.inCircle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG,
+                inside);
+    }
+
+    @Benchmark
+    public Side side() {
+        return inside.side(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM);
+    }
+
+    @Benchmark
+    public Side sideCollinear() {
+        return onArc.side(EarthCoordinates.MELBOURNE, EarthCoordinates.DARWIN);
+    }
+
+    @Benchmark
+    public boolean triangleContains() throws CollinearPointsException {
+        return triangle.contains(inside);
+    }
+
+}
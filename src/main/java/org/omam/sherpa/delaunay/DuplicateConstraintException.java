@@ -0,0 +1,24 @@
+package org.omam.sherpa.delaunay;
+
+/**
+ * Thrown whenever a constraint is added with the identifier of a constraint already part of the
+ * triangulation.
+ */
+public final class DuplicateConstraintException extends TriangulationException {
+
+    /**
+     * generated serial version UID.
+     */
+    private static final long serialVersionUID = 4786452245437652790L;
+
+    /**
+     * Constructs a new <code>DuplicateConstraintException</code> with the specified detail message.
+     * 
+     * @param msg the detail message. The detail message is saved for later retrieval by the
+     *            {@link #getMessage()} method.
+     */
+    DuplicateConstraintException(final String msg) {
+        super(msg);
+    }
+
+}
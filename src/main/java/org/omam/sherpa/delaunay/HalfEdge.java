@@ -8,6 +8,9 @@ public final class HalfEdge {
 
     private final PositionVector v;
 
+    /** identifier of the vertex in the registry of the triangulation. */
+    private final int id;
+
     private final Triangle f;
 
     private HalfEdge previous;
@@ -18,8 +21,9 @@ public final class HalfEdge {
 
     private boolean constrainted;
 
-    HalfEdge(final PositionVector vertex, final Triangle face) {
+    HalfEdge(final PositionVector vertex, final int vertexId, final Triangle face) {
         v = vertex;
+        id = vertexId;
         f = face;
         constrainted = false;
     }
@@ -48,8 +52,12 @@ public final class HalfEdge {
         return v;
     }
 
-    final void constrained() {
-        constrainted = true;
+    final int vertexId() {
+        return id;
+    }
+
+    final void constrained(final boolean constrained) {
+        constrainted = constrained;
     }
 
     final void next(final HalfEdge he) {
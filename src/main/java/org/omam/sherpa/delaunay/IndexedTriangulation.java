@@ -0,0 +1,560 @@
+package org.omam.sherpa.delaunay;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Triangle;
+import org.omam.sherpa.geometry.VectorMath;
+
+/**
+ * A triangulation stored as primitive arrays (struct-of-arrays) rather than as a graph of objects.
+ * <p>
+ * Vertices, faces and half-edges are identified by <code>int</code> handles:
+ * <ul>
+ * <li>vertex <code>v</code> has coordinates <code>[x(v), y(v), z(v)]</code>
+ * <li>face <code>f</code> is made up of the three half-edges <code>3f</code>, <code>3f + 1</code>
+ * and <code>3f + 2</code> - so that the face of a half-edge and the next/previous half-edges are
+ * computed rather than stored
+ * <li>each half-edge stores its origin vertex, its opposite (twin) half-edge - or <code>-1</code> -
+ * and whether it is constrained
+ * </ul>
+ * Removed faces are recycled through a free list so that handles of the remaining faces are never
+ * changed.
+ * <p>
+ * This store does not replace the object-based kernel of {@link Triangulator}, whose insertion and
+ * flip algorithms still work on {@link Triangle} and {@link HalfEdge} instances: it is exported by
+ * {@link Triangulator#index()} for read-mostly consumers such as navigation mesh snapshots.
+ * <p>
+ * Once {@link #freeze() frozen}, a triangulation can no longer be modified and can be safely
+ * queried by any number of threads without synchronisation - provided that it has been safely
+ * published.
+ */
+public final class IndexedTriangulation {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** vertex coordinates: x, y, z of vertex v at 3v, 3v + 1, 3v + 2. */
+    private double[] coordinates;
+
+    /** vertex to vertex handle and vertex handle to vertex. */
+    private final VertexRegistry vertices;
+
+    /** half-edge to origin vertex handle; -1 if the face of the half-edge is free. */
+    private int[] origins;
+
+    /** half-edge to opposite half-edge; -1 if none. */
+    private int[] twins;
+
+    /** half-edge to constrained flag. */
+    private boolean[] constrained;
+
+    /**
+     * half-edge to inward normal of its edge plane: <code>origin(he) &times; origin(next(he))</code>
+     * at 3he, 3he + 1, 3he + 2 - so that testing the side of a point is a single dot product.
+     */
+    private double[] normals;
+
+    /** number of face slots in use or free. */
+    private int faceSlots;
+
+    /** stack of free face slots. */
+    private int[] freeFaces;
+
+    private int freeCount;
+
+    /** edge (from vertex, to vertex) to half-edge, see {@link VertexRegistry#edgeKey(int, int)}. */
+    private final LongIntMap edges;
+
+    /** whether this triangulation can no longer be modified. */
+    private boolean frozen;
+
+    /**
+     * Constructs a new empty <code>IndexedTriangulation</code>.
+     */
+    public IndexedTriangulation() {
+        coordinates = new double[3 * INITIAL_CAPACITY];
+        vertices = new VertexRegistry();
+        origins = new int[3 * INITIAL_CAPACITY];
+        twins = new int[3 * INITIAL_CAPACITY];
+        constrained = new boolean[3 * INITIAL_CAPACITY];
+        normals = new double[9 * INITIAL_CAPACITY];
+        faceSlots = 0;
+        freeFaces = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        edges = new LongIntMap(-1);
+        frozen = false;
+    }
+
+    /**
+     * Constructs a new <code>IndexedTriangulation</code> which is a copy of the specified
+     * triangulation - under the same handles. The copy is not frozen, even if the specified
+     * triangulation is.
+     *
+     * @param source the triangulation to be copied
+     */
+    public IndexedTriangulation(final IndexedTriangulation source) {
+        coordinates = source.coordinates.clone();
+        vertices = new VertexRegistry(source.vertices);
+        origins = source.origins.clone();
+        twins = source.twins.clone();
+        constrained = source.constrained.clone();
+        normals = source.normals.clone();
+        faceSlots = source.faceSlots;
+        freeFaces = source.freeFaces.clone();
+        freeCount = source.freeCount;
+        edges = new LongIntMap(source.edges);
+        frozen = false;
+    }
+
+    /**
+     * Constructs a new <code>IndexedTriangulation</code> containing the specified faces and
+     * constrained edges.
+     *
+     * @param faces the faces
+     * @param constrainedEdges the constrained half-edges - only their end points are used
+     */
+    IndexedTriangulation(final Collection<Triangle> faces, final Collection<HalfEdge> constrainedEdges) {
+        this();
+        for (final Triangle face : faces) {
+            addFace(face);
+        }
+        for (final HalfEdge he : constrainedEdges) {
+            final int edge = edge(vertex(he.vertex()), vertex(he.next().vertex()));
+            if (edge != -1) {
+                constrain(edge);
+            }
+        }
+    }
+
+    /**
+     * Adds the specified face and returns its handle. Vertices of the face are added if needed.
+     *
+     * @param face the face to be added
+     * @return the handle of the added face
+     */
+    public final int addFace(final Triangle face) {
+        final int v0 = addVertex(face.vertices().get(0));
+        final int v1 = addVertex(face.vertices().get(1));
+        final int v2 = addVertex(face.vertices().get(2));
+        return addFace(v0, v1, v2);
+    }
+
+    /**
+     * Adds the face <code>(v0, v1, v2)</code> - vertices shall be oriented counterclockwise - and
+     * returns its handle.
+     *
+     * @param v0 first vertex handle
+     * @param v1 second vertex handle
+     * @param v2 third vertex handle
+     * @return the handle of the added face
+     */
+    public final int addFace(final int v0, final int v1, final int v2) {
+        checkNotFrozen();
+        final int face;
+        if (freeCount > 0) {
+            freeCount--;
+            face = freeFaces[freeCount];
+        } else {
+            ensureFaceCapacity(faceSlots + 1);
+            face = faceSlots;
+            faceSlots++;
+        }
+        final int he = 3 * face;
+        origins[he] = v0;
+        origins[he + 1] = v1;
+        origins[he + 2] = v2;
+        for (int i = he; i < he + 3; i++) {
+            constrained[i] = false;
+            final int from = origins[i];
+            final int to = origins[next(i)];
+            VectorMath.cross(x(from), y(from), z(from), x(to), y(to), z(to), normals, 3 * i);
+            edges.put(key(from, to), i);
+            final int twin = edges.get(key(to, from));
+            if (twin == -1) {
+                twins[i] = -1;
+            } else {
+                twins[i] = twin;
+                twins[twin] = i;
+                constrained[i] = constrained[twin];
+            }
+        }
+        return face;
+    }
+
+    /**
+     * Adds the specified vertex if not already part of this triangulation and returns its handle.
+     *
+     * @param v the vertex
+     * @return the handle of the vertex
+     */
+    public final int addVertex(final PositionVector v) {
+        checkNotFrozen();
+        final int count = vertices.size();
+        final int result = vertices.register(v);
+        if (result == count) {
+            if (3 * count == coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, 6 * count);
+            }
+            coordinates[3 * result] = v.x();
+            coordinates[3 * result + 1] = v.y();
+            coordinates[3 * result + 2] = v.z();
+        }
+        return result;
+    }
+
+    /**
+     * Marks the specified half-edge and its opposite half-edge as constrained.
+     *
+     * @param he the half-edge handle
+     */
+    public final void constrain(final int he) {
+        checkNotFrozen();
+        constrained[he] = true;
+        final int twin = twins[he];
+        if (twin != -1) {
+            constrained[twin] = true;
+        }
+    }
+
+    /**
+     * Marks the specified half-edge and its opposite half-edge as no longer constrained.
+     *
+     * @param he the half-edge handle
+     */
+    public final void unconstrain(final int he) {
+        checkNotFrozen();
+        constrained[he] = false;
+        final int twin = twins[he];
+        if (twin != -1) {
+            constrained[twin] = false;
+        }
+    }
+
+    /**
+     * Returns the handle of the half-edge from vertex <code>from</code> to vertex <code>to</code> or
+     * <code>-1</code> if no such half-edge exists.
+     *
+     * @param from the from vertex handle
+     * @param to the to vertex handle
+     * @return the handle of the half-edge from vertex <code>from</code> to vertex <code>to</code> or
+     *         <code>-1</code>
+     */
+    public final int edge(final int from, final int to) {
+        return edges.get(key(from, to));
+    }
+
+    /**
+     * Returns the handle of the face of the specified half-edge.
+     *
+     * @param he the half-edge handle
+     * @return the handle of the face of the specified half-edge
+     */
+    public final int face(final int he) {
+        return he / 3;
+    }
+
+    /**
+     * Returns the number of faces of this triangulation.
+     *
+     * @return the number of faces of this triangulation
+     */
+    public final int faceCount() {
+        return faceSlots - freeCount;
+    }
+
+    /**
+     * Returns the number of face slots - i.e. face handles range from <code>0</code> (inclusive) to
+     * this number (exclusive). Slots for which {@link #isFace(int)} returns <code>false</code> are
+     * free.
+     *
+     * @return the number of face slots
+     */
+    public final int faceSlots() {
+        return faceSlots;
+    }
+
+    /**
+     * Freezes this triangulation: any subsequent attempt to modify it fails.
+     */
+    public final void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Returns <code>true</code> if this triangulation has been {@link #freeze() frozen}.
+     *
+     * @return <code>true</code> if this triangulation has been frozen
+     */
+    public final boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified half-edge is constrained.
+     *
+     * @param he the half-edge handle
+     * @return <code>true</code> if the specified half-edge is constrained
+     */
+    public final boolean isConstrained(final int he) {
+        return constrained[he];
+    }
+
+    /**
+     * Returns <code>true</code> if the specified face slot is in use.
+     *
+     * @param face the face handle
+     * @return <code>true</code> if the specified face slot is in use
+     */
+    public final boolean isFace(final int face) {
+        return face >= 0 && face < faceSlots && origins[3 * face] != -1;
+    }
+
+    /**
+     * Returns the handle of the face whose closed boundary contains the specified point or
+     * <code>-1</code> if no such face exists.
+     * <p>
+     * The face is located by walking from the specified hint face towards the point, crossing at
+     * each step an edge of the current face which has the point strictly on its right and never
+     * going back through the edge the walk came from. All faces are searched if the walk leaves
+     * this triangulation or does not terminate within a number of steps equal to the number of
+     * faces. This method does not modify this triangulation and can be called concurrently.
+     *
+     * @param p the point
+     * @param hint the face handle from which the walk starts - any face is used if the hint is not
+     *            a face of this triangulation
+     * @return the handle of the face whose closed boundary contains the specified point or
+     *         <code>-1</code>
+     */
+    public final int locate(final PositionVector p, final int hint) {
+        int current = isFace(hint) ? hint : firstFace();
+        if (current == -1) {
+            return -1;
+        }
+        final double px = p.x();
+        final double py = p.y();
+        final double pz = p.z();
+        int entry = -1;
+        final int maxSteps = faceCount();
+        for (int step = 0; step < maxSteps; step++) {
+            int exit = -1;
+            // vary the first tested edge so that the walk cannot cycle
+            int he = 3 * current + step % 3;
+            for (int index = 0; index < 3 && exit == -1; index++) {
+                if (he != entry && orientation(px, py, pz, he) < 0.0) {
+                    exit = he;
+                }
+                he = next(he);
+            }
+            if (exit == -1) {
+                return current;
+            }
+            entry = twins[exit];
+            if (entry == -1) {
+                break;
+            }
+            current = face(entry);
+        }
+        for (int face = 0; face < faceSlots; face++) {
+            if (isFace(face) && contains(face, px, py, pz)) {
+                return face;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the handle of the half-edge following the specified half-edge in its face.
+     *
+     * @param he the half-edge handle
+     * @return the handle of the next half-edge
+     */
+    public final int next(final int he) {
+        return he % 3 == 2 ? he - 2 : he + 1;
+    }
+
+    /**
+     * Returns the handle of the opposite half-edge of the specified half-edge or <code>-1</code> if
+     * the specified half-edge is on the boundary of this triangulation.
+     *
+     * @param he the half-edge handle
+     * @return the handle of the opposite half-edge or <code>-1</code>
+     */
+    public final int opposite(final int he) {
+        return twins[he];
+    }
+
+    /**
+     * Returns the handle of the origin vertex of the specified half-edge.
+     *
+     * @param he the half-edge handle
+     * @return the handle of the origin vertex of the specified half-edge
+     */
+    public final int origin(final int he) {
+        return origins[he];
+    }
+
+    /**
+     * Returns the handle of the half-edge preceding the specified half-edge in its face.
+     *
+     * @param he the half-edge handle
+     * @return the handle of the previous half-edge
+     */
+    public final int previous(final int he) {
+        return he % 3 == 0 ? he + 2 : he - 1;
+    }
+
+    /**
+     * Removes the specified face - its slot is recycled by the next {@link #addFace(int, int, int)
+     * addition}. Vertices are not removed.
+     *
+     * @param face the face handle
+     * @throws IllegalArgumentException if the specified handle is not a face of this triangulation
+     */
+    public final void removeFace(final int face) {
+        checkNotFrozen();
+        if (!isFace(face)) {
+            // a free slot shall never be pushed twice onto the free list
+            throw new IllegalArgumentException("Face [" + face + "] is not part of this triangulation.");
+        }
+        final int he = 3 * face;
+        for (int i = he; i < he + 3; i++) {
+            edges.remove(key(origins[i], origins[next(i)]));
+            final int twin = twins[i];
+            if (twin != -1) {
+                twins[twin] = -1;
+            }
+        }
+        for (int i = he; i < he + 3; i++) {
+            origins[i] = -1;
+            twins[i] = -1;
+            constrained[i] = false;
+        }
+        if (freeCount == freeFaces.length) {
+            freeFaces = Arrays.copyOf(freeFaces, 2 * freeCount);
+        }
+        freeFaces[freeCount] = face;
+        freeCount++;
+    }
+
+    /**
+     * Returns the vertex corresponding to the specified handle.
+     *
+     * @param v the vertex handle
+     * @return the vertex corresponding to the specified handle
+     */
+    public final PositionVector vertex(final int v) {
+        return vertices.vertex(v);
+    }
+
+    /**
+     * Returns the handle of the specified vertex or <code>-1</code> if the vertex is not part of
+     * this triangulation.
+     *
+     * @param v the vertex
+     * @return the handle of the specified vertex or <code>-1</code>
+     */
+    public final int vertex(final PositionVector v) {
+        return vertices.id(v);
+    }
+
+    /**
+     * Returns the number of vertices of this triangulation.
+     *
+     * @return the number of vertices of this triangulation
+     */
+    public final int vertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the x component of the specified vertex.
+     *
+     * @param v the vertex handle
+     * @return the x component of the specified vertex
+     */
+    public final double x(final int v) {
+        return coordinates[3 * v];
+    }
+
+    /**
+     * Returns the y component of the specified vertex.
+     *
+     * @param v the vertex handle
+     * @return the y component of the specified vertex
+     */
+    public final double y(final int v) {
+        return coordinates[3 * v + 1];
+    }
+
+    /**
+     * Returns the z component of the specified vertex.
+     *
+     * @param v the vertex handle
+     * @return the z component of the specified vertex
+     */
+    public final double z(final int v) {
+        return coordinates[3 * v + 2];
+    }
+
+    /**
+     * Returns <code>true</code> if the closed boundary of the specified face contains the point
+     * <code>[px, py, pz]</code>.
+     */
+    private boolean contains(final int face, final double px, final double py, final double pz) {
+        final int he = 3 * face;
+        for (int i = he; i < he + 3; i++) {
+            if (orientation(px, py, pz, i) < 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Triangulation is frozen.");
+        }
+    }
+
+    private void ensureFaceCapacity(final int faces) {
+        if (3 * faces > origins.length) {
+            final int capacity = Math.max(3 * faces, 2 * origins.length);
+            origins = Arrays.copyOf(origins, capacity);
+            twins = Arrays.copyOf(twins, capacity);
+            constrained = Arrays.copyOf(constrained, capacity);
+            normals = Arrays.copyOf(normals, 3 * capacity);
+        }
+    }
+
+    /**
+     * Returns the handle of the first face slot in use or <code>-1</code> if this triangulation is
+     * empty.
+     */
+    private int firstFace() {
+        for (int face = 0; face < faceSlots; face++) {
+            if (isFace(face)) {
+                return face;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the scalar triple product <code>p &middot; (a &times; b)</code> where a and b are the
+     * end points of the specified half-edge - i.e. the dot product of p and the normal of the edge
+     * plane: positive if the point <code>[px, py, pz]</code> is on the left of the half-edge.
+     */
+    private double orientation(final double px, final double py, final double pz, final int he) {
+        final int n = 3 * he;
+        return VectorMath.dot(px, py, pz, normals[n], normals[n + 1], normals[n + 2]);
+    }
+
+    /**
+     * Returns the key of the edge (from, to).
+     */
+    private static long key(final int from, final int to) {
+        return VertexRegistry.edgeKey(from, to);
+    }
+
+}
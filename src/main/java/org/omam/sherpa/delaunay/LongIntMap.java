@@ -0,0 +1,172 @@
+package org.omam.sherpa.delaunay;
+
+/**
+ * A map from primitive <code>long</code> keys to primitive <code>int</code> values, implemented as
+ * an open addressing hash table with linear probing - see {@link LongMap}. Neither keys nor values
+ * are boxed.
+ */
+final class LongIntMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+
+    private int[] values;
+
+    /** whether each slot is in use. */
+    private boolean[] used;
+
+    private int size;
+
+    /** value returned by {@link #get(long)} when the key is absent. */
+    private final int missing;
+
+    /**
+     * Constructs a new empty <code>LongIntMap</code>.
+     *
+     * @param missingValue the value returned by {@link #get(long)} when the key is absent
+     */
+    LongIntMap(final int missingValue) {
+        keys = new long[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        used = new boolean[INITIAL_CAPACITY];
+        size = 0;
+        missing = missingValue;
+    }
+
+    /**
+     * Constructs a new <code>LongIntMap</code> containing the same entries as the specified map.
+     *
+     * @param source the map to be copied
+     */
+    LongIntMap(final LongIntMap source) {
+        keys = source.keys.clone();
+        values = source.values.clone();
+        used = source.used.clone();
+        size = source.size;
+        missing = source.missing;
+    }
+
+    /**
+     * Returns <code>true</code> if this map contains the specified key.
+     *
+     * @param key the key
+     * @return <code>true</code> if this map contains the specified key
+     */
+    final boolean containsKey(final long key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * Returns the value associated with the specified key or the missing value if none.
+     *
+     * @param key the key
+     * @return the value associated with the specified key or the missing value
+     */
+    final int get(final long key) {
+        final int slot = find(key);
+        return slot == -1 ? missing : values[slot];
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    final void put(final long key, final int value) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+    }
+
+    /**
+     * Removes the specified key - see {@link LongMap#remove(long)}.
+     *
+     * @param key the key
+     */
+    final void remove(final long key) {
+        final int slot = find(key);
+        if (slot != -1) {
+            final int mask = keys.length - 1;
+            int free = slot;
+            int next = slot + 1 & mask;
+            while (used[next]) {
+                final int home = slot(keys[next], mask);
+                if ((next - home & mask) >= (next - free & mask)) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    free = next;
+                }
+                next = next + 1 & mask;
+            }
+            used[free] = false;
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of entries of this map.
+     *
+     * @return the number of entries of this map
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of the specified key or <code>-1</code> if absent.
+     */
+    private int find(final long key) {
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = slot + 1 & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        final boolean[] oldUsed = used;
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i], mask);
+                while (used[slot]) {
+                    slot = slot + 1 & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private static int slot(final long key, final int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.omam.sherpa.delaunay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map from primitive <code>long</code> keys to non-null values, implemented as an open
+ * addressing hash table with linear probing: keys are never boxed and neither lookups nor updates
+ * of an existing key allocate.
+ * <p>
+ * A slot is free if and only if its value is <code>null</code>. Removal shifts back the following
+ * entries of the probe sequence so that no tombstone is needed.
+ *
+ * @param <V> the type of the values
+ */
+final class LongMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    /**
+     * Constructs a new empty <code>LongMap</code>.
+     */
+    LongMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Returns the value associated with the specified key or <code>null</code> if none.
+     *
+     * @param key the key
+     * @return the value associated with the specified key or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    final V get(final long key) {
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = slot + 1 & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key and returns the value previously
+     * associated with the key or <code>null</code> if none.
+     *
+     * @param key the key
+     * @param value the value - shall not be <code>null</code>
+     * @return the value previously associated with the key or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    final V put(final long key, final V value) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the value associated with the specified key and returns it or <code>null</code> if
+     * none.
+     *
+     * @param key the key
+     * @return the removed value or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    final V remove(final long key) {
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = slot + 1 & mask;
+        }
+        final V result = (V) values[slot];
+        if (result != null) {
+            // shift back following entries which would no longer be reachable
+            int free = slot;
+            int next = slot + 1 & mask;
+            while (values[next] != null) {
+                final int home = slot(keys[next], mask);
+                if ((next - home & mask) >= (next - free & mask)) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    free = next;
+                }
+                next = next + 1 & mask;
+            }
+            values[free] = null;
+            size--;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of entries of this map.
+     *
+     * @return the number of entries of this map
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new list containing the values of this map in no particular order.
+     *
+     * @return a new list containing the values of this map
+     */
+    @SuppressWarnings("unchecked")
+    final List<V> values() {
+        final List<V> result = new ArrayList<V>(size);
+        for (final Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = slot + 1 & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the home slot of the specified key: the key is mixed so that the packed vertex ids
+     * of edges spread over the whole table.
+     */
+    private static int slot(final long key, final int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.omam.sherpa.delaunay;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.omam.sherpa.geometry.GreatArc;
+import org.omam.sherpa.geometry.Triangle;
+
+/**
+ * The changes made to a triangulation by an operation: faces added and removed, edges constrained
+ * and no longer constrained.
+ * <p>
+ * Changes cancelling each other are not reported: a face added and then removed by the same
+ * operation is neither part of the added faces nor of the removed faces.
+ */
+public final class TriangulationDelta {
+
+    private final Set<Triangle> addedFaces;
+
+    private final Set<Triangle> removedFaces;
+
+    private final Set<GreatArc> constrainedEdges;
+
+    private final Set<GreatArc> unconstrainedEdges;
+
+    TriangulationDelta() {
+        addedFaces = new LinkedHashSet<Triangle>();
+        removedFaces = new LinkedHashSet<Triangle>();
+        constrainedEdges = new LinkedHashSet<GreatArc>();
+        unconstrainedEdges = new LinkedHashSet<GreatArc>();
+    }
+
+    /**
+     * Returns the faces added to the triangulation.
+     * 
+     * @return the faces added to the triangulation
+     */
+    public final Collection<Triangle> addedFaces() {
+        return Collections.unmodifiableCollection(addedFaces);
+    }
+
+    /**
+     * Returns the edges which have become constrained - one half-edge per edge.
+     * 
+     * @return the edges which have become constrained
+     */
+    public final Collection<GreatArc> constrainedEdges() {
+        return Collections.unmodifiableCollection(constrainedEdges);
+    }
+
+    /**
+     * Returns <code>true</code> if this delta does not contain any change.
+     * 
+     * @return <code>true</code> if this delta does not contain any change
+     */
+    public final boolean isEmpty() {
+        return addedFaces.isEmpty() && removedFaces.isEmpty() && constrainedEdges.isEmpty()
+                && unconstrainedEdges.isEmpty();
+    }
+
+    /**
+     * Returns the faces removed from the triangulation.
+     * 
+     * @return the faces removed from the triangulation
+     */
+    public final Collection<Triangle> removedFaces() {
+        return Collections.unmodifiableCollection(removedFaces);
+    }
+
+    /**
+     * Returns the edges which are no longer constrained - one half-edge per edge.
+     * 
+     * @return the edges which are no longer constrained
+     */
+    public final Collection<GreatArc> unconstrainedEdges() {
+        return Collections.unmodifiableCollection(unconstrainedEdges);
+    }
+
+    final void edgeConstrained(final GreatArc edge) {
+        if (!unconstrainedEdges.remove(edge) && !unconstrainedEdges.remove(edge.opposite())) {
+            constrainedEdges.add(edge);
+        }
+    }
+
+    final void edgeUnconstrained(final GreatArc edge) {
+        if (!constrainedEdges.remove(edge) && !constrainedEdges.remove(edge.opposite())) {
+            unconstrainedEdges.add(edge);
+        }
+    }
+
+    final void faceAdded(final Triangle face) {
+        addedFaces.add(face);
+    }
+
+    final void faceRemoved(final Triangle face) {
+        if (!addedFaces.remove(face)) {
+            removedFaces.add(face);
+        }
+    }
+
+}
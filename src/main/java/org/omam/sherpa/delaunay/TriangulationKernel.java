@@ -7,54 +7,173 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Random;
 
 import org.omam.sherpa.geometry.CollinearPointsException;
 import org.omam.sherpa.geometry.GeometryException;
 import org.omam.sherpa.geometry.GreatArc;
 import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Side;
 import org.omam.sherpa.geometry.Triangle;
 
 final class TriangulationKernel {
 
     /**
-     * a link edge to half-edge.
+     * a link vertex to vertex identifier: edges are keyed by the identifiers of their end points,
+     * see {@link VertexRegistry#edgeKey(int, int)}.
      */
-    private final Map<GreatArc, HalfEdge> halfEdges;
+    private final VertexRegistry vertices;
+
+    /**
+     * a link edge key to half-edge.
+     */
+    private final LongMap<HalfEdge> halfEdges;
 
     /**
      * a link face to any of the half-edges that make up the face.
      */
     private final Map<Triangle, HalfEdge> faceEdges;
 
+    /**
+     * a link vertex identifier to any of the half-edges starting at the vertex - <code>null</code>
+     * if the vertex is not part of this triangulation.
+     */
+    private HalfEdge[] vertexEdges;
+
+    /**
+     * a link constrained edge key to the number of constraints sharing the edge. Both directions
+     * of each constrained edge are present so that the half-edges of faces added later are
+     * constrained as well.
+     */
+    private final LongIntMap constraints;
+
+    /**
+     * changes made to this triangulation since the last {@link #drain() drain}; <code>null</code>
+     * if changes are not recorded.
+     */
+    private TriangulationDelta delta;
+
+    /**
+     * the last added face: default starting point of the {@link #face(PositionVector) point
+     * location} walk.
+     */
+    private Triangle lastFace;
+
+    /**
+     * used to pick the first edge tested by each step of the point location walk.
+     */
+    private final Random random;
+
     TriangulationKernel(final Collection<Triangle> boundaries) {
-        halfEdges = new HashMap<GreatArc, HalfEdge>();
+        vertices = new VertexRegistry();
+        halfEdges = new LongMap<HalfEdge>();
         faceEdges = new HashMap<Triangle, HalfEdge>();
+        vertexEdges = new HalfEdge[16];
+        constraints = new LongIntMap(0);
+        delta = null;
+        random = new Random(0L);
         addAll(boundaries);
     }
 
     final void commit(final Collection<Triangle> add, final Collection<Triangle> remove) {
         removeAll(remove);
         addAll(add);
+        releaseVertices(remove);
     }
 
+    /**
+     * Constrains the specified edge, which shall be an edge of this triangulation. The edge may be
+     * shared by several constraints: the number of constraints sharing the edge is counted.
+     * 
+     * @param edge the edge
+     */
     final void constrain(final GreatArc edge) {
-        final HalfEdge he = halfEdges.get(edge);
-        he.constrained();
-        he.opposite().constrained();
+        final int from = vertices.id(edge.from());
+        final int to = vertices.id(edge.to());
+        final int count = constraints.get(VertexRegistry.edgeKey(from, to));
+        if (count == 0 && delta != null) {
+            delta.edgeConstrained(edge);
+        }
+        constraints.put(VertexRegistry.edgeKey(from, to), count + 1);
+        constraints.put(VertexRegistry.edgeKey(to, from), count + 1);
+        final HalfEdge he = halfEdges.get(VertexRegistry.edgeKey(from, to));
+        he.constrained(true);
+        he.opposite().constrained(true);
+    }
+
+    /**
+     * Releases one of the constraints sharing the specified edge. The edge is no longer constrained
+     * once all constraints sharing the edge have been released.
+     * 
+     * @param edge the edge
+     * @return <code>true</code> if the edge is no longer constrained
+     */
+    final boolean unconstrain(final GreatArc edge) {
+        final long key = key(edge);
+        final int count = key == -1L ? 0 : constraints.get(key);
+        final boolean result;
+        if (count == 0) {
+            result = true;
+        } else if (count == 1) {
+            if (delta != null) {
+                delta.edgeUnconstrained(edge);
+            }
+            constraints.remove(key);
+            constraints.remove(opposite(key));
+            final HalfEdge he = halfEdges.get(key);
+            if (he != null) {
+                he.constrained(false);
+                if (he.opposite() != null) {
+                    he.opposite().constrained(false);
+                }
+            }
+            result = true;
+        } else {
+            constraints.put(key, count - 1);
+            constraints.put(opposite(key), count - 1);
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the changes made to this triangulation since the last call to this method and
+     * starts recording new changes. Returns <code>null</code> if changes are not recorded.
+     * 
+     * @return the changes made to this triangulation since the last call to this method or
+     *         <code>null</code>
+     */
+    final TriangulationDelta drain() {
+        final TriangulationDelta result = delta;
+        if (delta != null) {
+            delta = new TriangulationDelta();
+        }
+        return result;
+    }
+
+    /**
+     * Starts or stops recording the changes made to this triangulation.
+     * 
+     * @param record whether changes shall be recorded
+     */
+    final void record(final boolean record) {
+        if (!record) {
+            delta = null;
+        } else if (delta == null) {
+            delta = new TriangulationDelta();
+        }
     }
 
     final boolean containsEdge(final GreatArc edge) {
-        return halfEdges.get(edge) != null;
+        return halfEdge(edge) != null;
+    }
+
+    final boolean containsFace(final Triangle face) {
+        return faceEdges.containsKey(face);
     }
 
     final boolean containsVertex(final PositionVector v) {
-        for (final HalfEdge he : halfEdges.values()) {
-            if (he.vertex().equals(v)) {
-                return true;
-            }
-        }
-        return false;
+        return vertexEdge(v) != null;
     }
 
     final List<Triangle> divide(final Triangle face, final PositionVector v) throws GeometryException {
@@ -101,15 +220,83 @@ final class TriangulationKernel {
         return added;
     }
 
+    /**
+     * Returns the half-edge of this triangulation on which the specified vertex lies. Returns
+     * <code>null</code> if the vertex does not lie on any edge.
+     * <p>
+     * The face whose closed boundary contains the vertex is first {@link #locate(PositionVector)
+     * located}, so that only its three edges need to be tested.
+     * 
+     * @param v the vertex
+     * @return the half-edge of this triangulation on which the specified vertex lies or
+     *         <code>null</code>
+     */
     final HalfEdge edge(final PositionVector v) {
-        for (final Entry<GreatArc, HalfEdge> edge : halfEdges.entrySet()) {
-            if (edge.getKey().contains(v)) {
-                return edge.getValue();
+        final Triangle face = locate(v);
+        return face == null ? null : edge(face, v);
+    }
+
+    /**
+     * Returns the half-edge of the specified face on which the specified vertex lies. Returns
+     * <code>null</code> if the vertex does not lie on any edge of the face.
+     * 
+     * @param face the face
+     * @param v the vertex
+     * @return the half-edge of the specified face on which the specified vertex lies or
+     *         <code>null</code>
+     */
+    final HalfEdge edge(final Triangle face, final PositionVector v) {
+        HalfEdge he = faceEdges.get(face);
+        for (int index = 0; index < 3; index++) {
+            if (face.opposedEdge(he.previous().vertex()).contains(v)) {
+                return he;
             }
+            he = he.next();
         }
         return null;
     }
 
+    /**
+     * Returns the face of this triangulation whose closed boundary contains the specified vertex
+     * or <code>null</code> if no such face exists.
+     * <p>
+     * The face is located by a single walk from the last added face, see
+     * {@link #face(PositionVector, Triangle)}, so that callers can then test whether the vertex lies
+     * on one of its edges - {@link #edge(Triangle, PositionVector)} - or strictly inside it without
+     * walking again. All faces are searched if the walk leaves the triangulation. A vertex lying on
+     * an edge within the tolerance of {@link GreatArc#contains(PositionVector)} is located in a face
+     * of that edge even if it is exactly outside of it.
+     * 
+     * @param v the vertex
+     * @return the face whose closed boundary contains the specified vertex or <code>null</code>
+     */
+    final Triangle locate(final PositionVector v) {
+        final Triangle walked = walk(v, lastFace);
+        if (walked != null) {
+            return walked;
+        }
+        for (final Triangle t : faceEdges.keySet()) {
+            final boolean closed = t.side(0, v) != Side.RIGHT && t.side(1, v) != Side.RIGHT
+                    && t.side(2, v) != Side.RIGHT;
+            if (closed || edge(t, v) != null) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the half-edge corresponding to the specified edge or <code>null</code> if the edge is
+     * not part of this triangulation.
+     * 
+     * @param edge the edge
+     * @return the half-edge corresponding to the specified edge or <code>null</code>
+     */
+    final HalfEdge halfEdge(final GreatArc edge) {
+        final long key = key(edge);
+        return key == -1L ? null : halfEdges.get(key);
+    }
+
     final Collection<HalfEdge> edges() {
         return Collections.unmodifiableCollection(halfEdges.values());
     }
@@ -118,6 +305,9 @@ final class TriangulationKernel {
      * Returns the face that strictly contains the vertex v - vertex v is not a vertex of the
      * navigation mesh. Returns <code>null</code> if no such face exists.
      * <p>
+     * The search starts from the last face added to this triangulation, see
+     * {@link #face(PositionVector, Triangle)}.
+     * <p>
      * Call {@link #edge(PositionVector)} before calling this method in case the vertex is actually
      * located on an edge of one of the faces of this triangulation.
      * 
@@ -128,7 +318,33 @@ final class TriangulationKernel {
      *             of this triangulation
      */
     final Triangle face(final PositionVector v) throws CollinearPointsException {
-        // FIXME : worst method to find a point...
+        return face(v, lastFace);
+    }
+
+    /**
+     * Returns the face that strictly contains the vertex v - vertex v is not a vertex of the
+     * navigation mesh. Returns <code>null</code> if no such face exists.
+     * <p>
+     * The face is located by walking from the specified hint face towards the vertex: at each step
+     * the walk crosses an edge of the current face which has the vertex on its right. The first
+     * edge tested is picked randomly and the walk never goes back through the edge it came from
+     * (remembering stochastic walk), so that the walk is guaranteed to terminate. The expected
+     * number of visited faces is proportional to the square root of the number of faces. If the
+     * walk leaves the triangulation, all faces are searched.
+     * 
+     * @param v the vertex
+     * @param hint the face from which the search starts - if <code>null</code> or not part of this
+     *            triangulation the search starts from the last added face
+     * @return the face that strictly contains the vertex v - vertex v is not a vertex of the
+     *         navigation mesh. Returns {@link NullPointerException} if no such face exists
+     * @throws CollinearPointsException if the vertex is collinear with one of the edges of a face
+     *             of this triangulation
+     */
+    final Triangle face(final PositionVector v, final Triangle hint) throws CollinearPointsException {
+        final Triangle walked = walk(v, hint);
+        if (walked != null) {
+            return walked.contains(v) ? walked : null;
+        }
         for (final Triangle t : faceEdges.keySet()) {
             if (t.contains(v)) {
                 return t;
@@ -158,7 +374,7 @@ final class TriangulationKernel {
             // loop through all faces connected to vertex edge#from()
             do {
                 final Triangle face = currentHe.face();
-                if (face.opposedEdge(edge.from()).intersects(edge, false)) {
+                if (face.opposedEdge(edge.from()).crosses(edge)) {
                     return face;
                 }
                 // next half-edge connected to vertex
@@ -262,31 +478,20 @@ final class TriangulationKernel {
 
     // adds the specified face.
     private void add(final Triangle face) {
-        final List<GreatArc> edges = face.edges();
-        HalfEdge he = null;
-        for (final GreatArc edge : edges) {
-            he = new HalfEdge(edge.from(), face);
-            halfEdges.put(edge, he);
-        }
-
+        final List<PositionVector> vs = face.vertices();
+        final HalfEdge he0 = newHalfEdge(vs.get(0), face);
+        final HalfEdge he1 = newHalfEdge(vs.get(1), face);
+        final HalfEdge he2 = newHalfEdge(vs.get(2), face);
         // define half-edge links
-        for (int index = 0; index < 3; index++) {
-            final GreatArc edge = edges.get(index);
-            final GreatArc previous = index == 0 ? edges.get(2) : edges.get(index - 1);
-            final GreatArc next = index == 2 ? edges.get(0) : edges.get(index + 1);
-            // set previous and next half-edges
-            he = halfEdges.get(edge);
-            he.previous(halfEdges.get(previous));
-            he.next(halfEdges.get(next));
-
-            // set opposite half-edge
-            final HalfEdge oHe = halfEdges.get(edge.opposite());
-            if (oHe != null) {
-                oHe.opposite(he);
-                he.opposite(oHe);
-            }
+        link(he0, he1, he2);
+        link(he1, he2, he0);
+        link(he2, he0, he1);
+        // the face is linked to the half-edge of its last edge, see walk
+        faceEdges.put(face, he2);
+        lastFace = face;
+        if (delta != null) {
+            delta.faceAdded(face);
         }
-        faceEdges.put(face, he);
     }
 
     private void addAll(final Collection<Triangle> faces) {
@@ -297,15 +502,23 @@ final class TriangulationKernel {
 
     // removes the specified face.
     private void remove(final Triangle face) {
-        for (final GreatArc edge : face.edges()) {
-            final HalfEdge he = halfEdges.remove(edge);
+        HalfEdge he = faceEdges.get(face);
+        for (int index = 0; index < 3; index++) {
+            halfEdges.remove(VertexRegistry.edgeKey(he.vertexId(), he.next().vertexId()));
+            if (vertexEdges[he.vertexId()] == he) {
+                unlinkVertex(he);
+            }
             // amend opposite half edge;
             final HalfEdge oHe = he.opposite();
             if (oHe != null) {
                 oHe.opposite(null);
             }
+            he = he.next();
         }
         faceEdges.remove(face);
+        if (delta != null) {
+            delta.faceRemoved(face);
+        }
     }
 
     private void removeAll(final Collection<Triangle> faces) {
@@ -314,6 +527,128 @@ final class TriangulationKernel {
         }
     }
 
+    /**
+     * Releases the identifier of each vertex of the specified removed faces which is no longer
+     * part of this triangulation, so that identifiers - and the link vertex to half-edge - stay
+     * bounded by the number of vertices. This is done once a commit is complete rather than as
+     * soon as a vertex is unlinked, so that a vertex which is only briefly unlinked keeps its
+     * identifier - and its constrained edges.
+     */
+    private void releaseVertices(final Collection<Triangle> removed) {
+        for (final Triangle face : removed) {
+            for (final PositionVector v : face.vertices()) {
+                final int id = vertices.id(v);
+                if (id != -1 && vertexEdges[id] == null) {
+                    vertices.release(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the half-edges starting at the specified vertex in counterclockwise order or an empty
+     * list if the vertex is not part of this triangulation. The faces of the returned half-edges
+     * make up the star of the vertex and the vertices at the end of the returned half-edges - its
+     * link - are in counterclockwise order.
+     * 
+     * @param vertex the vertex
+     * @return the half-edges starting at the specified vertex in counterclockwise order
+     */
+    final List<HalfEdge> star(final PositionVector vertex) {
+        final List<HalfEdge> result = new ArrayList<HalfEdge>();
+        final HalfEdge first = vertexEdge(vertex);
+        HalfEdge he = first;
+        while (he != null) {
+            result.add(he);
+            he = he.previous().opposite();
+            if (he == first) {
+                he = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Walks from the specified hint face towards the specified vertex and returns the face of this
+     * triangulation whose closed boundary contains the vertex. Returns <code>null</code> if the
+     * walk leaves the triangulation or does not terminate within a number of steps equal to the
+     * number of faces.
+     * 
+     * @param v the vertex
+     * @param hint the face from which the walk starts
+     * @return the face whose closed boundary contains the vertex or <code>null</code>
+     */
+    private Triangle walk(final PositionVector v, final Triangle hint) {
+        Triangle current = hint != null && faceEdges.containsKey(hint) ? hint : lastFace;
+        if (current == null || !faceEdges.containsKey(current)) {
+            return null;
+        }
+        Triangle previous = null;
+        final int maxSteps = faceEdges.size();
+        for (int step = 0; step < maxSteps; step++) {
+            // half-edge of the last edge of the face and index of its edge in the face.
+            HalfEdge he = faceEdges.get(current);
+            int edge = 2;
+            for (int skip = random.nextInt(3); skip > 0; skip--) {
+                he = he.next();
+                edge = edge == 2 ? 0 : edge + 1;
+            }
+            HalfEdge exit = null;
+            for (int index = 0; index < 3 && exit == null; index++) {
+                final HalfEdge opposite = he.opposite();
+                final boolean cameFrom = opposite != null && opposite.face() == previous;
+                // strictly on the right of the edge, using the cached normal of the edge plane
+                if (!cameFrom && current.side(edge, v) == Side.RIGHT) {
+                    exit = he;
+                }
+                he = he.next();
+                edge = edge == 2 ? 0 : edge + 1;
+            }
+            if (exit == null) {
+                return current;
+            }
+            if (exit.opposite() == null) {
+                /*
+                 * vertex is outside of the triangulation - unless it snaps onto the boundary edge -
+                 * or triangulation is not convex.
+                 */
+                return current.opposedEdge(exit.previous().vertex()).contains(v) ? current : null;
+            }
+            previous = current;
+            current = exit.opposite().face();
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the specified half-edge - which is being removed - in the link vertex to half-edge by
+     * another half-edge starting at the same vertex and which still belongs to this triangulation.
+     * The link is removed if no such half-edge exists.
+     * 
+     * @param removed the half-edge being removed
+     */
+    private void unlinkVertex(final HalfEdge removed) {
+        final int vertex = removed.vertexId();
+        // turn around vertex in both directions until a face still in this triangulation is found
+        HalfEdge he = removed.previous().opposite();
+        while (he != null && he != removed) {
+            if (faceEdges.containsKey(he.face())) {
+                vertexEdges[vertex] = he;
+                return;
+            }
+            he = he.previous().opposite();
+        }
+        he = removed.opposite() == null ? null : removed.opposite().next();
+        while (he != null && he != removed) {
+            if (faceEdges.containsKey(he.face())) {
+                vertexEdges[vertex] = he;
+                return;
+            }
+            he = he.opposite() == null ? null : he.opposite().next();
+        }
+        vertexEdges[vertex] = null;
+    }
+
     /**
      * Returns the first half-edge corresponding to the specified vertex. Returns <code>null</code>
      * if not such half-edge exists.
@@ -323,14 +658,60 @@ final class TriangulationKernel {
      *         if not such half-edge exists
      */
     private HalfEdge vertexEdge(final PositionVector vertex) {
-        HalfEdge he = null;
-        for (final HalfEdge halfEdge : halfEdges.values()) {
-            if (halfEdge.vertex().equals(vertex)) {
-                he = halfEdge;
-                break;
-            }
+        final int id = vertices.id(vertex);
+        return id == -1 ? null : vertexEdges[id];
+    }
+
+    /**
+     * Returns the key of the specified edge or <code>-1</code> if any of its end points is not a
+     * registered vertex.
+     */
+    private long key(final GreatArc edge) {
+        final int from = vertices.id(edge.from());
+        if (from == -1) {
+            return -1L;
         }
-        return he;
+        final int to = vertices.id(edge.to());
+        return to == -1 ? -1L : VertexRegistry.edgeKey(from, to);
+    }
+
+    /**
+     * Returns the key of the edge opposite to the edge of the specified key.
+     */
+    private static long opposite(final long key) {
+        return key << 32 | key >>> 32;
+    }
+
+    /**
+     * Links the specified half-edge - which starts the edge <code>(he, next)</code> of a face being
+     * added - to its previous, next and opposite half-edges and registers it.
+     */
+    private void link(final HalfEdge previous, final HalfEdge he, final HalfEdge next) {
+        he.previous(previous);
+        he.next(next);
+        final long key = VertexRegistry.edgeKey(he.vertexId(), next.vertexId());
+        he.constrained(constraints.containsKey(key));
+        halfEdges.put(key, he);
+        // set opposite half-edge
+        final HalfEdge oHe = halfEdges.get(opposite(key));
+        if (oHe != null) {
+            oHe.opposite(he);
+            he.opposite(oHe);
+        }
+    }
+
+    /**
+     * Returns a new half-edge starting at the specified vertex - registered if needed - and
+     * belonging to the specified face. The half-edge becomes the link of the vertex.
+     */
+    private HalfEdge newHalfEdge(final PositionVector vertex, final Triangle face) {
+        final int id = vertices.register(vertex);
+        if (id == vertexEdges.length) {
+            vertexEdges = Arrays.copyOf(vertexEdges, 2 * id);
+        }
+        final HalfEdge result = new HalfEdge(vertex, id, face);
+        vertexEdges[id] = result;
+        return result;
     }
 
 }
@@ -0,0 +1,16 @@
+package org.omam.sherpa.delaunay;
+
+/**
+ * Listener notified of each change of a {@link Triangulator triangulation}.
+ */
+public interface TriangulationListener {
+
+    /**
+     * Invoked once each operation modifying the triangulation has completed - or failed after
+     * having modified the triangulation.
+     * 
+     * @param delta the changes made to the triangulation by the operation
+     */
+    void triangulationChanged(final TriangulationDelta delta);
+
+}
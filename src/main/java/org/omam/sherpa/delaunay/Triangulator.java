@@ -3,12 +3,29 @@ package org.omam.sherpa.delaunay;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.omam.sherpa.geometry.CollinearPointsException;
 import org.omam.sherpa.geometry.GeometryException;
 import org.omam.sherpa.geometry.GreatArc;
+import org.omam.sherpa.geometry.HilbertOrder;
 import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Side;
 import org.omam.sherpa.geometry.Triangle;
 
 /**
@@ -24,10 +41,50 @@ import org.omam.sherpa.geometry.Triangle;
  */
 public final class Triangulator {
 
+    /** size under which points are inserted in a single round. */
+    private static final int BRIO_MIN_ROUND = 64;
+
     private final TriangulationKernel kernel;
 
+    /** constraint identifier to constraint. */
+    private final Map<String, Constraint> constraints;
+
+    /**
+     * vertex inserted by a constraint to the number of constraints having this vertex: the vertex
+     * is removed from this triangulation once all these constraints are removed.
+     */
+    private final Map<PositionVector, Integer> constraintVertices;
+
+    private final List<TriangulationListener> listeners;
+
     public Triangulator(final List<Triangle> boundaries) {
         kernel = new TriangulationKernel(boundaries);
+        constraints = new HashMap<String, Constraint>();
+        constraintVertices = new HashMap<PositionVector, Integer>();
+        listeners = new ArrayList<TriangulationListener>();
+    }
+
+    /**
+     * Adds the specified listener: once each operation modifying this triangulation has completed,
+     * the listener is notified of the {@link TriangulationDelta changes} made by the operation.
+     * 
+     * @param l the listener
+     */
+    public final void addListener(final TriangulationListener l) {
+        listeners.add(l);
+        kernel.record(true);
+    }
+
+    /**
+     * Removes the specified listener.
+     * 
+     * @param l the listener
+     */
+    public final void removeListener(final TriangulationListener l) {
+        listeners.remove(l);
+        if (listeners.isEmpty()) {
+            kernel.record(false);
+        }
     }
 
     /**
@@ -56,26 +113,125 @@ public final class Triangulator {
      * @throws GeometryException if the operation fails for geometric reasons
      * @throws TriangulationException if one of the vertices cannot be located within the
      *             triangulation or is an already constrained edge would be amended as a result of
-     *             this operation
+     *             this operation or if a constraint with the same identifier already exists
      */
-    public final void addConstraint(@SuppressWarnings("unused") final String id, final PositionVector[] vertices)
-            throws GeometryException, TriangulationException {
-        // first insert points in triangulation
-        for (final PositionVector vertex : vertices) {
-            addPoint(vertex);
+    public final void addConstraint(final String id, final PositionVector[] vertices) throws GeometryException,
+            TriangulationException {
+        try {
+            insertConstraint(id, vertices);
+        } finally {
+            fire();
         }
-        // then insert constrained edges
-        for (int i = 0; i < vertices.length - 1; i++) {
-            addConstrainedEdge(new GreatArc(vertices[i], vertices[i + 1]));
+    }
+
+    /**
+     * Adds the specified constraints to this triangulation - see
+     * {@link #addConstraint(String, PositionVector[])}.
+     * <p>
+     * The vertices of all constraints are first {@link #addPoints(Collection) bulk inserted} and the
+     * constrained edges of all constraints are then inserted: this is much faster than adding each
+     * constraint one after the other when the number of constraints is large.
+     * 
+     * @param constraints constraint identifier to vertices of the constraint
+     * @throws GeometryException if the operation fails for geometric reasons
+     * @throws TriangulationException if one of the vertices cannot be located within the
+     *             triangulation or is an already constrained edge would be amended as a result of
+     *             this operation or if a constraint with the same identifier already exists
+     */
+    public final void addConstraints(final Map<String, PositionVector[]> constraints) throws GeometryException,
+            TriangulationException {
+        checkAbsent(constraints);
+        final Set<PositionVector> inserted = missingVertices(constraints);
+        final Map<String, Constraint> added = new LinkedHashMap<String, Constraint>();
+        try {
+            // first bulk insert all points in triangulation
+            insertPoints(inserted);
+            // then insert constrained edges of each constraint
+            for (final Entry<String, PositionVector[]> e : constraints.entrySet()) {
+                final Constraint constraint = new Constraint(e.getValue());
+                added.put(e.getKey(), constraint);
+                addConstrainedEdges(constraint, inserted);
+            }
+        } catch (final GeometryException e) {
+            discard(added.values(), inserted);
+            throw e;
+        } catch (final TriangulationException e) {
+            discard(added.values(), inserted);
+            throw e;
+        } finally {
+            fire();
         }
-        // if length > 2 and first and last are different, close the constraint
-        if (vertices.length > 2) {
-            final PositionVector first = vertices[0];
-            final PositionVector last = vertices[vertices.length - 1];
-            if (!first.equals(last)) {
-                addConstrainedEdge(new GreatArc(last, first));
+        // only registered once all added so that the failed constraints can be added again
+        this.constraints.putAll(added);
+    }
+
+    /**
+     * Adds the specified constraints to this triangulation - see {@link #addConstraints(Map)} -
+     * planning the insertion of the constrained edges concurrently on the specified executor.
+     * <p>
+     * Constrained edges are inserted in rounds. During each round, the faces cut by each pending
+     * edge and the faces replacing them are computed concurrently, without modifying this
+     * triangulation. Plans are then committed one after the other: a plan is committed only if all
+     * the faces it removes are still part of this triangulation - i.e. no previously committed plan
+     * has modified its region - otherwise the edge is planned again during the next round. Edges
+     * of constraints located in disjoint regions are therefore planned and committed in a single
+     * round. Since the constrained Delaunay triangulation is unique, the result is the same as
+     * inserting the constraints one after the other.
+     * 
+     * @param constraints constraint identifier to vertices of the constraint
+     * @param executor the executor used to plan the insertion of the constrained edges
+     * @param parallelism the number of concurrent planning tasks
+     * @throws GeometryException if the operation fails for geometric reasons
+     * @throws TriangulationException if one of the vertices cannot be located within the
+     *             triangulation or is an already constrained edge would be amended as a result of
+     *             this operation or if a constraint with the same identifier already exists
+     * @throws InterruptedException if the current thread is interrupted while waiting for the
+     *             planning tasks
+     */
+    public final void addConstraints(final Map<String, PositionVector[]> constraints, final ExecutorService executor,
+            final int parallelism) throws GeometryException, TriangulationException, InterruptedException {
+        checkAbsent(constraints);
+        final Set<PositionVector> inserted = missingVertices(constraints);
+        final Map<String, Constraint> added = new LinkedHashMap<String, Constraint>();
+        try {
+            // first bulk insert all points in triangulation
+            insertPoints(inserted);
+            // then insert constrained edges of all constraints in rounds
+            List<EdgeInsertion> pending = new ArrayList<EdgeInsertion>();
+            for (final Entry<String, PositionVector[]> e : constraints.entrySet()) {
+                final Constraint constraint = new Constraint(e.getValue());
+                added.put(e.getKey(), constraint);
+                registerVertices(constraint, inserted);
+                for (final GreatArc edge : edges(constraint)) {
+                    pending.add(new EdgeInsertion(edge, constraint));
+                }
+            }
+            while (!pending.isEmpty()) {
+                plan(pending, executor, parallelism);
+                final List<EdgeInsertion> conflicting = new ArrayList<EdgeInsertion>();
+                for (final EdgeInsertion insertion : pending) {
+                    if (isCommittable(insertion)) {
+                        commit(insertion);
+                    } else {
+                        conflicting.add(insertion);
+                    }
+                }
+                pending = conflicting;
             }
+        } catch (final GeometryException e) {
+            discard(added.values(), inserted);
+            throw e;
+        } catch (final TriangulationException e) {
+            discard(added.values(), inserted);
+            throw e;
+        } catch (final InterruptedException e) {
+            discard(added.values(), inserted);
+            throw e;
+        } finally {
+            fire();
         }
+        // only registered once all added so that the failed constraints can be added again
+        this.constraints.putAll(added);
     }
 
     /**
@@ -96,22 +252,86 @@ public final class Triangulator {
      * @throws FaceNotFoundException if the point cannot be located within the triangulation
      */
     public final void addPoint(final PositionVector p) throws GeometryException, TriangulationException {
-        if (kernel.containsVertex(p)) {
-            /*
-             * point already present in this triangulation, no need to go any further.
-             */
-        } else {
-            final HalfEdge he = kernel.edge(p);
-            if (he != null) {
-                insertPointInEdge(p, he);
-            } else {
-                final Triangle face = kernel.face(p);
-                if (face != null) {
-                    insertPointInFace(p, face);
-                } else {
-                    throw new FaceNotFoundException("No face containing vertex [" + p + "] was found.");
-                }
-            }
+        try {
+            insertPoint(p);
+        } finally {
+            fire();
+        }
+    }
+
+    /**
+     * Adds the specified {@link PositionVector points} to this triangulation - see
+     * {@link #addPoint(PositionVector)}.
+     * <p>
+     * Points are inserted in a biased randomised insertion order (BRIO): points are randomly
+     * distributed into rounds of doubling size and the points of each round are sorted along a
+     * {@link HilbertOrder space-filling curve}. Each point is therefore located starting from a face
+     * created by the insertion of a nearby point, which makes the insertion of a large number of
+     * points close to linear.
+     * 
+     * @param points the points to be added
+     * @throws GeometryException if the operation fails for geometric reasons
+     * @throws FaceNotFoundException if one of the points cannot be located within the triangulation
+     */
+    public final void addPoints(final Collection<PositionVector> points) throws GeometryException,
+            TriangulationException {
+        try {
+            insertPoints(points);
+        } finally {
+            fire();
+        }
+    }
+
+    /**
+     * Removes the constraint identified by the specified identifier from this triangulation,
+     * following the algorithm proposed by <i>Kallmann &amp; al.</i> in <i>"Fully Dynamic
+     * Constrained Delaunay Triangulations"</i>:
+     * <ol>
+     * <li>each edge of the constraint which is not shared by another constraint is no longer
+     * constrained and the Delaunay property is restored around it by flipping edges
+     * <li>each vertex inserted by the constraint and not shared by another constraint is removed:
+     * the faces around the vertex are replaced by a Delaunay triangulation of the polygon made up
+     * of its neighbours
+     * </ol>
+     * Only faces in the neighbourhood of the constraint are modified.
+     * 
+     * @param id the identifier of the constraint to be removed
+     * @return <code>true</code> if the constraint has been removed, <code>false</code> if no
+     *         constraint has the specified identifier
+     * @throws GeometryException if the operation fails for geometric reasons
+     */
+    public final boolean removeConstraint(final String id) throws GeometryException {
+        try {
+            return deleteConstraint(id);
+        } finally {
+            fire();
+        }
+    }
+
+    /**
+     * Moves the constraint identified by the specified identifier to the specified vertices: the
+     * constraint is {@link #removeConstraint(String) removed} and {@link #addConstraint(String,
+     * PositionVector[]) added} again with the new vertices under the same identifier. Vertices
+     * common to the old and new constraint are kept in this triangulation, so that only the faces
+     * in the neighbourhood of the old and new constraint are modified.
+     * <p>
+     * If the new constraint cannot be added, the old constraint is restored before the exception
+     * is thrown.
+     * 
+     * @param id the identifier of the constraint to be moved
+     * @param vertices the new vertices of the constraint
+     * @return <code>true</code> if the constraint has been moved, <code>false</code> if no
+     *         constraint has the specified identifier
+     * @throws GeometryException if the operation fails for geometric reasons
+     * @throws TriangulationException if the new constraint cannot be added, see
+     *             {@link #addConstraint(String, PositionVector[])}
+     */
+    public final boolean moveConstraint(final String id, final PositionVector[] vertices) throws GeometryException,
+            TriangulationException {
+        try {
+            return relocateConstraint(id, vertices);
+        } finally {
+            fire();
         }
     }
 
@@ -123,16 +343,183 @@ public final class Triangulator {
         return kernel.faces();
     }
 
+    /**
+     * Returns a new {@link IndexedTriangulation} containing the faces and constrained edges of this
+     * triangulation. The returned triangulation is not updated when this triangulation changes.
+     * 
+     * @return a new {@link IndexedTriangulation} containing the faces and constrained edges of this
+     *         triangulation
+     */
+    public final IndexedTriangulation index() {
+        final List<HalfEdge> constrained = new ArrayList<HalfEdge>();
+        for (final HalfEdge he : kernel.edges()) {
+            if (he.isConstrained()) {
+                constrained.add(he);
+            }
+        }
+        return new IndexedTriangulation(kernel.faces(), constrained);
+    }
+
+    /**
+     * Returns a new {@link IndexedTriangulation} containing the faces and constrained edges of this
+     * triangulation - as {@link #index()} would do - by updating a copy of the specified previous
+     * index with the specified changes: only the faces and edges touched by the changes are
+     * updated. The index is rebuilt from scratch once the vertices no longer part of this
+     * triangulation make up more than half of the vertices of the previous index.
+     * 
+     * @param previous the previous index - not modified
+     * @param changes the changes made to this triangulation since the previous index was built, in
+     *            order
+     * @return a new {@link IndexedTriangulation} containing the faces and constrained edges of this
+     *         triangulation
+     * @throws IllegalArgumentException if a removed face is not part of the previous index
+     */
+    public final IndexedTriangulation index(final IndexedTriangulation previous,
+            final List<TriangulationDelta> changes) {
+        // faces of a closed triangulation of the sphere: F = 2V - 4
+        final int vertexCount = kernel.faces().size() / 2 + 2;
+        if (previous.vertexCount() > 2 * vertexCount) {
+            return index();
+        }
+        final IndexedTriangulation result = new IndexedTriangulation(previous);
+        final List<GreatArc> touched = new ArrayList<GreatArc>();
+        for (final TriangulationDelta change : changes) {
+            for (final Triangle face : change.removedFaces()) {
+                final int he = result.edge(result.vertex(face.vertices().get(0)),
+                        result.vertex(face.vertices().get(1)));
+                if (he == -1) {
+                    throw new IllegalArgumentException("Face " + face + " is not part of the previous index.");
+                }
+                result.removeFace(result.face(he));
+            }
+            for (final Triangle face : change.addedFaces()) {
+                result.addFace(face);
+                touched.addAll(face.edges());
+            }
+            touched.addAll(change.constrainedEdges());
+            touched.addAll(change.unconstrainedEdges());
+        }
+        // added faces inherit the flag of their twin: align every touched edge on this triangulation
+        for (final GreatArc edge : touched) {
+            final int he = result.edge(result.vertex(edge.from()), result.vertex(edge.to()));
+            final HalfEdge current = kernel.halfEdge(edge);
+            if (he != -1 && current != null) {
+                if (current.isConstrained()) {
+                    result.constrain(he);
+                } else {
+                    result.unconstrain(he);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Subdivides each face of this triangulation into four faces by joining the midpoints of its
+     * edges, the specified number of times. The midpoint of an edge is shared by the two faces
+     * adjacent to the edge. All subdivided faces are committed at once in the kernel: this is much
+     * faster than {@link #tessellate(int) tessellating} since no point location or edge flipping is
+     * required.
+     * <p>
+     * Applied to an {@link org.omam.sherpa.geometry.Icosahedron icosahedron}, the result is a
+     * geodesic grid whose number of faces is <code>20 * 4^subdivisionLevel</code>.
+     * 
+     * @param subdivisionLevel the number of subdivisions
+     * @throws GeometryException if the operation fails for geometric reasons
+     * @throws ConstrainedEdgeException if this triangulation has constrained edges
+     */
+    public final void subdivide(final int subdivisionLevel) throws GeometryException, TriangulationException {
+        try {
+            for (final HalfEdge he : kernel.edges()) {
+                if (he.isConstrained()) {
+                    throw new ConstrainedEdgeException(he + " is constrained.");
+                }
+            }
+            final List<Triangle> initial = new ArrayList<Triangle>(kernel.faces());
+            List<Triangle> faces = initial;
+            for (int level = 0; level < subdivisionLevel; level++) {
+                faces = subdivideOnce(faces);
+            }
+            kernel.commit(faces, initial);
+        } finally {
+            fire();
+        }
+    }
+
     public final void tessellate(final int tessellationLevel) throws GeometryException, TriangulationException {
-        int level = 0;
-        while (level < tessellationLevel) {
-            tessellateOnce();
-            level++;
+        try {
+            int level = 0;
+            while (level < tessellationLevel) {
+                tessellateOnce();
+                level++;
+            }
+        } finally {
+            fire();
+        }
+    }
+
+    /**
+     * Registers the vertices of the specified constraint and inserts all its edges as constrained
+     * edges. The vertices of the constraint shall have been added to this triangulation.
+     * 
+     * @param constraint the constraint
+     * @param inserted the vertices which have just been inserted in this triangulation
+     */
+    private void addConstrainedEdges(final Constraint constraint, final Collection<PositionVector> inserted)
+            throws GeometryException {
+        registerVertices(constraint, inserted);
+        for (final GreatArc edge : edges(constraint)) {
+            addConstrainedEdge(new EdgeInsertion(edge, constraint));
+        }
+    }
+
+    private void addConstrainedEdge(final EdgeInsertion insertion) throws GeometryException {
+        plan(insertion);
+        commit(insertion);
+    }
+
+    /**
+     * Commits the specified planned edge insertion in the kernel and constrains the edge.
+     */
+    private void commit(final EdgeInsertion insertion) {
+        if (!insertion.toRemove.isEmpty()) {
+            kernel.commit(insertion.toAdd, insertion.toRemove);
+        }
+        kernel.constrain(insertion.edge);
+        insertion.constraint.edges.add(insertion.edge);
+    }
+
+    /**
+     * Returns <code>true</code> if the specified planned edge insertion can still be committed:
+     * all the faces it removes are still part of this triangulation - or, if it does not remove
+     * any face, the edge is still part of this triangulation.
+     */
+    private boolean isCommittable(final EdgeInsertion insertion) {
+        if (insertion.toRemove.isEmpty()) {
+            return kernel.containsEdge(insertion.edge);
+        }
+        for (final Triangle face : insertion.toRemove) {
+            if (!kernel.containsFace(face)) {
+                return false;
+            }
         }
+        return true;
     }
 
+    /**
+     * Plans the insertion of the specified edge - without modifying this triangulation. The plan
+     * follows the algorithm proposed by <i>Anglada</i>: faces cut by the edge are to be removed and
+     * replaced by the Delaunay triangulations of the upper and lower pseudo-polygons of the edge.
+     * Nothing is to be removed if the edge is already part of this triangulation.
+     * <p>
+     * This method only reads the kernel and can therefore be called concurrently as long as this
+     * triangulation is not modified.
+     */
     // FIXME : throw Exception if edge is crossing another constrained edge...
-    private void addConstrainedEdge(final GreatArc edge) throws GeometryException {
+    private void plan(final EdgeInsertion insertion) throws GeometryException {
+        final GreatArc edge = insertion.edge;
+        final List<Triangle> toRemove = new ArrayList<Triangle>();
+        final List<Triangle> toAdd = new ArrayList<Triangle>();
         if (!kernel.containsEdge(edge)) {
 
             final PositionVector start = edge.from();
@@ -142,8 +529,6 @@ public final class Triangulator {
 
             final List<PositionVector> pu = new ArrayList<PositionVector>();
             final List<PositionVector> pl = new ArrayList<PositionVector>();
-            final Collection<Triangle> toRemove = new ArrayList<Triangle>();
-            final Collection<Triangle> toAdd = new ArrayList<Triangle>();
 
             PositionVector v = start;
 
@@ -197,11 +582,147 @@ public final class Triangulator {
             // re-triangulate upper and lower pseudo-polygons
             toAdd.addAll(triangulatePseudoPolygonDelaunay(pu, edge));
             toAdd.addAll(triangulatePseudoPolygonDelaunay(pl, edge));
+        }
+        insertion.toAdd = toAdd;
+        insertion.toRemove = toRemove;
+    }
 
-            // commit in kernel
-            kernel.commit(toAdd, toRemove);
+    /**
+     * Plans the specified edge insertions concurrently on the specified executor.
+     * <p>
+     * If planning fails or the current thread is interrupted, the tasks which have not started
+     * yet are cancelled and the running ones are stopped after their current edge: this method
+     * only returns once no task reads this triangulation anymore.
+     */
+    private void plan(final List<EdgeInsertion> insertions, final ExecutorService executor, final int parallelism)
+            throws GeometryException, InterruptedException {
+        final int size = insertions.size();
+        final int batches = Math.max(1, Math.min(parallelism, size));
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        final CountDownLatch finished = new CountDownLatch(batches);
+        final List<PlanningTask> tasks = new ArrayList<PlanningTask>(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            final List<EdgeInsertion> sublist = insertions.subList((int) ((long) size * batch / batches),
+                    (int) ((long) size * (batch + 1) / batches));
+            tasks.add(new PlanningTask(sublist, aborted, finished));
+        }
+        final List<Future<?>> futures = new ArrayList<Future<?>>(batches);
+        boolean completed = false;
+        try {
+            for (final PlanningTask task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            completed = true;
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof GeometryException) {
+                throw (GeometryException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            if (!completed) {
+                abort(tasks, futures, aborted, finished);
+            }
         }
-        kernel.constrain(edge);
+    }
+
+    /**
+     * Aborts the specified planning tasks and waits until none of them is running.
+     */
+    private static void abort(final List<PlanningTask> tasks, final List<Future<?>> futures,
+            final AtomicBoolean aborted, final CountDownLatch finished) {
+        aborted.set(true);
+        for (final Future<?> future : futures) {
+            future.cancel(false);
+        }
+        // tasks which have not started - including those never submitted - will not run
+        for (final PlanningTask task : tasks) {
+            if (task.claim()) {
+                finished.countDown();
+            }
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks that none of the specified constraints is already part of this triangulation.
+     */
+    private void checkAbsent(final Map<String, PositionVector[]> constraints) throws DuplicateConstraintException {
+        for (final String id : constraints.keySet()) {
+            if (this.constraints.containsKey(id)) {
+                throw new DuplicateConstraintException("Constraint [" + id + "] already exists.");
+            }
+        }
+    }
+
+    /**
+     * Returns the vertices of the specified constraints which are not part of this triangulation.
+     */
+    private Set<PositionVector> missingVertices(final Map<String, PositionVector[]> constraints) {
+        final Set<PositionVector> result = new LinkedHashSet<PositionVector>();
+        for (final PositionVector[] vertices : constraints.values()) {
+            for (final PositionVector vertex : vertices) {
+                if (!kernel.containsVertex(vertex)) {
+                    result.add(vertex);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Registers the vertices of the specified constraint which are either shared with another
+     * constraint or have just been inserted in this triangulation.
+     */
+    private void registerVertices(final Constraint constraint, final Collection<PositionVector> inserted) {
+        for (final PositionVector vertex : constraint.definition) {
+            final Integer count = constraintVertices.get(vertex);
+            if (count != null) {
+                constraintVertices.put(vertex, count + 1);
+                constraint.vertices.add(vertex);
+            } else if (inserted.contains(vertex)) {
+                constraintVertices.put(vertex, 1);
+                constraint.vertices.add(vertex);
+            }
+        }
+    }
+
+    /**
+     * Returns the edges of the specified constraint. If the constraint contains more than 2
+     * vertices and first and last vertices are different, the constraint is closed by an edge
+     * joining last and first vertices.
+     */
+    private static List<GreatArc> edges(final Constraint constraint) throws GeometryException {
+        final PositionVector[] vertices = constraint.definition;
+        final List<GreatArc> result = new ArrayList<GreatArc>();
+        for (int i = 0; i < vertices.length - 1; i++) {
+            result.add(new GreatArc(vertices[i], vertices[i + 1]));
+        }
+        if (vertices.length > 2) {
+            final PositionVector first = vertices[0];
+            final PositionVector last = vertices[vertices.length - 1];
+            if (!first.equals(last)) {
+                result.add(new GreatArc(last, first));
+            }
+        }
+        return result;
     }
 
     private void insertPointInEdge(final PositionVector v, final HalfEdge he) throws GeometryException,
@@ -230,7 +751,7 @@ public final class Triangulator {
             final Triangle fopo = kernel.opposedFace(f, v);
             if (fopo != null) {
                 final HalfEdge link = kernel.link(f, fopo);
-                if (!link.isConstrained() && fopo.circumcircleContains(v)) {
+                if (!link.isConstrained() && fopo.circumcircleStrictlyContains(v)) {
                     final List<Triangle> swapped = kernel.swapEdge(f, fopo);
                     stack.addFirst(swapped.get(0));
                     stack.addFirst(swapped.get(1));
@@ -239,6 +760,331 @@ public final class Triangulator {
         }
     }
 
+    /**
+     * See {@link #addPoint(PositionVector)} - without notifying listeners.
+     */
+    private void insertPoint(final PositionVector p) throws GeometryException, TriangulationException {
+        if (kernel.containsVertex(p)) {
+            /*
+             * point already present in this triangulation, no need to go any further.
+             */
+        } else {
+            // single walk: the located face tells whether the point lies on one of its edges
+            final Triangle face = kernel.locate(p);
+            final HalfEdge he = face == null ? null : kernel.edge(face, p);
+            if (he != null) {
+                insertPointInEdge(p, he);
+            } else if (face != null && face.contains(p)) {
+                insertPointInFace(p, face);
+            } else {
+                throw new FaceNotFoundException("No face containing vertex [" + p + "] was found.");
+            }
+        }
+    }
+
+    /**
+     * See {@link #addPoints(Collection)} - without notifying listeners.
+     */
+    private void insertPoints(final Collection<PositionVector> points) throws GeometryException,
+            TriangulationException {
+        for (final PositionVector p : insertionOrder(points)) {
+            insertPoint(p);
+        }
+    }
+
+    /**
+     * See {@link #addConstraint(String, PositionVector[])} - without notifying listeners.
+     */
+    private void insertConstraint(final String id, final PositionVector[] vertices) throws GeometryException,
+            TriangulationException {
+        if (constraints.containsKey(id)) {
+            throw new DuplicateConstraintException("Constraint [" + id + "] already exists.");
+        }
+        final Constraint constraint = new Constraint(vertices);
+        final Collection<PositionVector> inserted = new ArrayList<PositionVector>();
+        try {
+            // first insert points in triangulation
+            for (final PositionVector vertex : vertices) {
+                if (!kernel.containsVertex(vertex)) {
+                    insertPoint(vertex);
+                    inserted.add(vertex);
+                }
+            }
+            // then insert constrained edges
+            addConstrainedEdges(constraint, inserted);
+        } catch (final GeometryException e) {
+            discard(constraint, inserted);
+            throw e;
+        } catch (final TriangulationException e) {
+            discard(constraint, inserted);
+            throw e;
+        }
+        // only registered once fully added so that a failed constraint can be added again
+        constraints.put(id, constraint);
+    }
+
+    /**
+     * See {@link #removeConstraint(String)} - without notifying listeners.
+     */
+    private boolean deleteConstraint(final String id) throws GeometryException {
+        final Constraint constraint = constraints.remove(id);
+        if (constraint == null) {
+            return false;
+        }
+        release(constraint);
+        return true;
+    }
+
+    /**
+     * Discards the specified constraint whose addition has failed: its constrained edges and
+     * registered vertices are released and the points inserted before its vertices were
+     * registered are removed, so that this triangulation is left unchanged.
+     */
+    private void discard(final Constraint constraint, final Collection<PositionVector> inserted)
+            throws GeometryException {
+        discard(Collections.singletonList(constraint), inserted);
+    }
+
+    /**
+     * Discards the specified constraints whose addition has failed - see
+     * {@link #discard(Constraint, Collection)}.
+     */
+    private void discard(final Collection<Constraint> constraints, final Collection<PositionVector> inserted)
+            throws GeometryException {
+        for (final Constraint constraint : constraints) {
+            release(constraint);
+        }
+        for (final PositionVector vertex : inserted) {
+            if (kernel.containsVertex(vertex) && !constraintVertices.containsKey(vertex)) {
+                removeVertex(vertex);
+            }
+        }
+    }
+
+    /**
+     * Releases the constrained edges and the vertices of the specified constraint.
+     */
+    private void release(final Constraint constraint) throws GeometryException {
+        final Deque<GreatArc> unconstrained = new ArrayDeque<GreatArc>();
+        for (final GreatArc edge : constraint.edges) {
+            if (kernel.unconstrain(edge)) {
+                unconstrained.addFirst(edge);
+            }
+        }
+        restoreDelaunay(unconstrained);
+        for (final PositionVector vertex : constraint.vertices) {
+            releaseVertex(vertex);
+        }
+    }
+
+    /**
+     * See {@link #moveConstraint(String, PositionVector[])} - without notifying listeners.
+     */
+    private boolean relocateConstraint(final String id, final PositionVector[] vertices) throws GeometryException,
+            TriangulationException {
+        final Constraint old = constraints.get(id);
+        if (old == null) {
+            return false;
+        }
+        // pin vertices common to the old and new constraint so that they are not removed
+        final List<PositionVector> pinned = new ArrayList<PositionVector>();
+        for (final PositionVector vertex : vertices) {
+            final Integer count = constraintVertices.get(vertex);
+            if (count != null && old.vertices.contains(vertex) && !pinned.contains(vertex)) {
+                constraintVertices.put(vertex, count + 1);
+                pinned.add(vertex);
+            }
+        }
+        deleteConstraint(id);
+        try {
+            insertConstraint(id, vertices);
+        } catch (final GeometryException e) {
+            restore(id, old);
+            throw e;
+        } catch (final TriangulationException e) {
+            restore(id, old);
+            throw e;
+        } finally {
+            for (final PositionVector vertex : pinned) {
+                releaseVertex(vertex);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Notifies listeners of the changes made to this triangulation since the last notification.
+     */
+    private void fire() {
+        final TriangulationDelta delta = kernel.drain();
+        if (delta != null && !delta.isEmpty()) {
+            for (final TriangulationListener l : listeners) {
+                l.triangulationChanged(delta);
+            }
+        }
+    }
+
+    /**
+     * Releases one of the constraints having the specified vertex: the vertex is removed from this
+     * triangulation once all these constraints have been released.
+     */
+    private void releaseVertex(final PositionVector vertex) throws GeometryException {
+        final int count = constraintVertices.get(vertex);
+        if (count == 1) {
+            constraintVertices.remove(vertex);
+            removeVertex(vertex);
+        } else {
+            constraintVertices.put(vertex, count - 1);
+        }
+    }
+
+    /**
+     * Restores the specified constraint after a failed {@link #moveConstraint(String,
+     * PositionVector[]) move}: the new constraint - including the points it inserted - has already
+     * been discarded by {@link #insertConstraint(String, PositionVector[])}, the old constraint is
+     * added again.
+     */
+    private void restore(final String id, final Constraint old) throws GeometryException, TriangulationException {
+        insertConstraint(id, old.definition);
+    }
+
+    /**
+     * Restores the Delaunay property around the specified edges by flipping each edge which is not
+     * constrained and whose opposite vertex lies strictly inside the circumcircle of its face (Lawson
+     * flips). The outer edges of each flipped quadrilateral are checked in turn.
+     * 
+     * @param edges the edges to be checked - emptied by this method
+     */
+    private void restoreDelaunay(final Deque<GreatArc> edges) throws GeometryException {
+        while (!edges.isEmpty()) {
+            final HalfEdge he = kernel.halfEdge(edges.removeFirst());
+            if (he != null && !he.isConstrained() && he.opposite() != null) {
+                final HalfEdge ohe = he.opposite();
+                final Triangle f1 = he.face();
+                if (f1.circumcircleStrictlyContains(ohe.previous().vertex())) {
+                    edges.addFirst(edge(he.next()));
+                    edges.addFirst(edge(he.previous()));
+                    edges.addFirst(edge(ohe.next()));
+                    edges.addFirst(edge(ohe.previous()));
+                    kernel.swapEdge(f1, ohe.face());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the specified vertex from this triangulation. The faces around the vertex are
+     * replaced by a triangulation of the polygon made up of the neighbours of the vertex: ears of the
+     * polygon are cut one after the other and the Delaunay property is then restored by flipping
+     * the new edges.
+     * <p>
+     * The star of the vertex shall be closed: only vertices inserted by constraints are removed and
+     * those are always inserted either inside a face or on an edge shared by two faces.
+     * 
+     * @param vertex the vertex to be removed
+     * @throws IllegalStateException if the vertex is on the boundary of a partial triangulation
+     */
+    private void removeVertex(final PositionVector vertex) throws GeometryException {
+        final List<HalfEdge> star = kernel.star(vertex);
+        if (star.isEmpty()) {
+            return;
+        }
+        if (star.get(star.size() - 1).previous().opposite() != star.get(0)) {
+            throw new IllegalStateException("Vertex [" + vertex + "] is on the boundary of the triangulation.");
+        }
+        final List<Triangle> removed = new ArrayList<Triangle>(star.size());
+        final List<PositionVector> polygon = new ArrayList<PositionVector>(star.size());
+        for (final HalfEdge he : star) {
+            removed.add(he.face());
+            polygon.add(he.next().vertex());
+        }
+        final List<Triangle> added = new ArrayList<Triangle>();
+        final Deque<GreatArc> diagonals = new ArrayDeque<GreatArc>();
+        while (polygon.size() > 3) {
+            final int size = polygon.size();
+            int ear = -1;
+            for (int i = 0; i < size && ear == -1; i++) {
+                if (isEar(polygon, i)) {
+                    ear = i;
+                }
+            }
+            if (ear == -1) {
+                throw new IllegalStateException("No ear found in the neighbourhood of " + vertex);
+            }
+            final PositionVector a = polygon.get(ear);
+            final PositionVector b = polygon.get((ear + 1) % size);
+            final PositionVector c = polygon.get((ear + 2) % size);
+            added.add(new Triangle(a, b, c));
+            diagonals.addFirst(new GreatArc(c, a));
+            polygon.remove((ear + 1) % size);
+        }
+        added.add(new Triangle(polygon.get(0), polygon.get(1), polygon.get(2)));
+        kernel.commit(added, removed);
+        restoreDelaunay(diagonals);
+    }
+
+    /**
+     * Returns <code>true</code> if the vertex at index i + 1 of the specified counterclockwise
+     * polygon is an ear: the polygon turns left at this vertex and no other vertex of the polygon
+     * lies within the triangle (i, i + 1, i + 2).
+     */
+    private static boolean isEar(final List<PositionVector> polygon, final int i) {
+        final int size = polygon.size();
+        final PositionVector a = polygon.get(i);
+        final PositionVector b = polygon.get((i + 1) % size);
+        final PositionVector c = polygon.get((i + 2) % size);
+        if (c.side(a, b) != Side.LEFT) {
+            return false;
+        }
+        for (int j = 0; j < size - 3; j++) {
+            final PositionVector p = polygon.get((i + 3 + j) % size);
+            if (p.side(a, b) != Side.RIGHT && p.side(b, c) != Side.RIGHT && p.side(c, a) != Side.RIGHT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the edge corresponding to the specified half-edge.
+     */
+    private static GreatArc edge(final HalfEdge he) throws GeometryException {
+        return new GreatArc(he.vertex(), he.next().vertex());
+    }
+
+    /**
+     * Returns the midpoint of the specified edge, reusing the midpoint already computed for the
+     * opposite edge if any.
+     */
+    private static PositionVector midPoint(final PositionVector from, final PositionVector to,
+            final Map<GreatArc, PositionVector> midPoints) throws GeometryException {
+        final GreatArc edge = new GreatArc(from, to);
+        PositionVector result = midPoints.remove(edge.opposite());
+        if (result == null) {
+            result = edge.midPoint();
+            midPoints.put(edge, result);
+        }
+        return result;
+    }
+
+    private static List<Triangle> subdivideOnce(final List<Triangle> faces) throws GeometryException {
+        final List<Triangle> result = new ArrayList<Triangle>(4 * faces.size());
+        final Map<GreatArc, PositionVector> midPoints = new HashMap<GreatArc, PositionVector>();
+        for (final Triangle face : faces) {
+            final PositionVector v0 = face.vertices().get(0);
+            final PositionVector v1 = face.vertices().get(1);
+            final PositionVector v2 = face.vertices().get(2);
+            final PositionVector m01 = midPoint(v0, v1, midPoints);
+            final PositionVector m12 = midPoint(v1, v2, midPoints);
+            final PositionVector m20 = midPoint(v2, v0, midPoints);
+            result.add(new Triangle(v0, m01, m20));
+            result.add(new Triangle(m01, v1, m12));
+            result.add(new Triangle(m20, m12, v2));
+            result.add(new Triangle(m01, m12, m20));
+        }
+        return result;
+    }
+
     private void tessellateOnce() throws GeometryException, TriangulationException {
         /*
          * Incrementally add the centroid of each triangle since the centroid is guaranteed to be
@@ -249,9 +1095,36 @@ public final class Triangulator {
             centroids.add(face.centroid());
         }
 
-        for (final PositionVector centroid : centroids) {
-            addPoint(centroid);
+        insertPoints(centroids);
+    }
+
+    /**
+     * Returns the specified points in biased randomised insertion order.
+     * 
+     * @param points the points
+     * @return the specified points in biased randomised insertion order
+     */
+    private static List<PositionVector> insertionOrder(final Collection<PositionVector> points) {
+        final List<PositionVector> shuffled = new ArrayList<PositionVector>(points);
+        Collections.shuffle(shuffled, new Random(0L));
+        /*
+         * last round contains half of the points, the previous one a quarter and so on; rounds are
+         * inserted from the smallest to the largest.
+         */
+        final List<PositionVector> result = new ArrayList<PositionVector>(shuffled.size());
+        final List<Integer> bounds = new ArrayList<Integer>();
+        int bound = shuffled.size();
+        while (bound > BRIO_MIN_ROUND) {
+            bounds.add(0, bound);
+            bound = bound / 2;
+        }
+        bounds.add(0, bound);
+        int start = 0;
+        for (final int end : bounds) {
+            result.addAll(HilbertOrder.sort(shuffled.subList(start, end)));
+            start = end;
         }
+        return result;
     }
 
     private List<Triangle> triangulatePseudoPolygonDelaunay(final List<PositionVector> polygon, final GreatArc edge)
@@ -281,4 +1154,103 @@ public final class Triangulator {
         return result;
     }
 
+    /**
+     * The constrained edges and the vertices inserted by a constraint.
+     */
+    private static final class Constraint {
+
+        /** constrained edges, as inserted. */
+        private final List<GreatArc> edges;
+
+        /** vertices inserted by - or shared with - the constraint. */
+        private final List<PositionVector> vertices;
+
+        /** vertices of the constraint, as specified. */
+        private final PositionVector[] definition;
+
+        Constraint(final PositionVector[] definition) {
+            edges = new ArrayList<GreatArc>();
+            vertices = new ArrayList<PositionVector>();
+            this.definition = definition.clone();
+        }
+
+    }
+
+    /**
+     * The insertion of a constrained edge: faces to be removed and faces to be added.
+     */
+    private static final class EdgeInsertion {
+
+        private final GreatArc edge;
+
+        /** constraint of the edge. */
+        private final Constraint constraint;
+
+        /** faces cut by the edge; empty if the edge is already part of the triangulation. */
+        private List<Triangle> toRemove;
+
+        /** faces replacing the removed faces. */
+        private List<Triangle> toAdd;
+
+        EdgeInsertion(final GreatArc edge, final Constraint constraint) {
+            this.edge = edge;
+            this.constraint = constraint;
+            toRemove = null;
+            toAdd = null;
+        }
+
+    }
+
+    /**
+     * A task planning a batch of edge insertions - see
+     * {@link Triangulator#plan(List, ExecutorService, int)}.
+     */
+    private final class PlanningTask implements Callable<Void> {
+
+        private final List<EdgeInsertion> insertions;
+
+        /** whether planning has been aborted. */
+        private final AtomicBoolean aborted;
+
+        /** counted down once this task has run or will never run. */
+        private final CountDownLatch finished;
+
+        /** whether this task has started or will never run. */
+        private final AtomicBoolean claimed;
+
+        PlanningTask(final List<EdgeInsertion> insertions, final AtomicBoolean aborted, final CountDownLatch finished) {
+            this.insertions = insertions;
+            this.aborted = aborted;
+            this.finished = finished;
+            claimed = new AtomicBoolean(false);
+        }
+
+        @Override
+        public final Void call() throws GeometryException {
+            if (!claim()) {
+                return null;
+            }
+            try {
+                for (final EdgeInsertion insertion : insertions) {
+                    if (aborted.get()) {
+                        break;
+                    }
+                    plan(insertion);
+                }
+            } finally {
+                finished.countDown();
+            }
+            return null;
+        }
+
+        /**
+         * Claims this task, either to run it or to prevent it from running: returns
+         * <code>true</code> if it had not been claimed yet.
+         */
+        final boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+    }
+
 }
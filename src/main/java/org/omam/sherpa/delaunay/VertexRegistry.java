@@ -0,0 +1,249 @@
+package org.omam.sherpa.delaunay;
+
+import java.util.Arrays;
+
+import org.omam.sherpa.geometry.PositionVector;
+
+/**
+ * Assigns a dense <code>int</code> identifier - <code>0, 1, 2, ...</code> - to each distinct
+ * vertex, consistently with {@link PositionVector#equals(Object)}.
+ * <p>
+ * Vertex equality compares components with a tolerance, which {@link PositionVector#hashCode()}
+ * cannot honour: two equal vertices may be truncated to different hash codes. The registry
+ * instead snaps each vertex onto a grid whose cells have the size of the tolerance: two vertices
+ * in the same cell are always equal and a vertex equal to a registered vertex is either in the
+ * same cell or in one of the 26 neighbouring cells. Each cell holds at most one registered
+ * vertex; the cell of a vertex is looked up first and its neighbours only if the cell is empty.
+ * <p>
+ * The identifier of a {@link #release(int) released} vertex is reused by the next registered
+ * vertex, so that identifiers - and the tables indexed by them - do not grow without bound as
+ * vertices come and go. Lookups do not modify the registry and can be done concurrently as long as
+ * no vertex is being registered or released.
+ */
+final class VertexRegistry {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final double CELL_SIZE = PositionVector.CARTESIAN_EPSILON;
+
+    /** identifier to vertex. */
+    private PositionVector[] vertices;
+
+    /** identifier to grid cell: cell coordinates of vertex id at 3id, 3id + 1, 3id + 2. */
+    private int[] cells;
+
+    private int size;
+
+    /** released identifiers, reused last released first. */
+    private int[] released;
+
+    private int releasedCount;
+
+    /** open addressing hash table of the occupied cells: identifier + 1, or 0 if the slot is free. */
+    private int[] table;
+
+    /**
+     * Constructs a new empty <code>VertexRegistry</code>.
+     */
+    VertexRegistry() {
+        vertices = new PositionVector[INITIAL_CAPACITY];
+        cells = new int[3 * INITIAL_CAPACITY];
+        size = 0;
+        released = new int[INITIAL_CAPACITY];
+        releasedCount = 0;
+        table = new int[2 * INITIAL_CAPACITY];
+    }
+
+    /**
+     * Constructs a new <code>VertexRegistry</code> containing the same vertices, under the same
+     * identifiers, as the specified registry.
+     *
+     * @param source the registry to be copied
+     */
+    VertexRegistry(final VertexRegistry source) {
+        vertices = source.vertices.clone();
+        cells = source.cells.clone();
+        size = source.size;
+        released = source.released.clone();
+        releasedCount = source.releasedCount;
+        table = source.table.clone();
+    }
+
+    /**
+     * Returns the key of the edge from vertex <code>from</code> to vertex <code>to</code>: the
+     * identifier of <code>from</code> in the high 32 bits and the identifier of <code>to</code> in
+     * the low 32 bits.
+     *
+     * @param from the identifier of the from vertex
+     * @param to the identifier of the to vertex
+     * @return the key of the edge
+     */
+    static long edgeKey(final int from, final int to) {
+        return (long) from << 32 | to & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the identifier of the specified vertex or <code>-1</code> if no registered vertex is
+     * equal to the specified vertex.
+     *
+     * @param v the vertex
+     * @return the identifier of the specified vertex or <code>-1</code>
+     */
+    final int id(final PositionVector v) {
+        final int cx = cell(v.x());
+        final int cy = cell(v.y());
+        final int cz = cell(v.z());
+        int result = find(cx, cy, cz);
+        if (result == -1) {
+            for (int dx = -1; dx <= 1 && result == -1; dx++) {
+                for (int dy = -1; dy <= 1 && result == -1; dy++) {
+                    for (int dz = -1; dz <= 1 && result == -1; dz++) {
+                        if (dx != 0 || dy != 0 || dz != 0) {
+                            final int id = find(cx + dx, cy + dy, cz + dz);
+                            if (id != -1 && vertices[id].equals(v)) {
+                                result = id;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Registers the specified vertex if no registered vertex is equal to it and returns its
+     * identifier: the last released identifier if any, <code>size()</code> otherwise.
+     *
+     * @param v the vertex
+     * @return the identifier of the specified vertex
+     */
+    final int register(final PositionVector v) {
+        final int existing = id(v);
+        if (existing != -1) {
+            return existing;
+        }
+        final int result;
+        if (releasedCount > 0) {
+            releasedCount--;
+            result = released[releasedCount];
+        } else {
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * size);
+                cells = Arrays.copyOf(cells, 6 * size);
+            }
+            if (2 * (size + 1) > table.length) {
+                rehash(2 * table.length);
+            }
+            result = size;
+            size++;
+        }
+        vertices[result] = v;
+        cells[3 * result] = cell(v.x());
+        cells[3 * result + 1] = cell(v.y());
+        cells[3 * result + 2] = cell(v.z());
+        insert(result);
+        return result;
+    }
+
+    /**
+     * Releases the specified identifier: the vertex registered under it is no longer registered
+     * and the identifier will be reused by the next registered vertex.
+     *
+     * @param id the identifier of a registered vertex
+     */
+    final void release(final int id) {
+        final int mask = table.length - 1;
+        final int c = 3 * id;
+        int free = slot(cells[c], cells[c + 1], cells[c + 2], mask);
+        while (table[free] != id + 1) {
+            free = free + 1 & mask;
+        }
+        // backward shift deletion: move up entries whose probe sequence crosses the freed slot
+        int next = free + 1 & mask;
+        while (table[next] != 0) {
+            final int n = 3 * (table[next] - 1);
+            final int home = slot(cells[n], cells[n + 1], cells[n + 2], mask);
+            if ((next - home & mask) >= (next - free & mask)) {
+                table[free] = table[next];
+                free = next;
+            }
+            next = next + 1 & mask;
+        }
+        table[free] = 0;
+        vertices[id] = null;
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, 2 * releasedCount);
+        }
+        released[releasedCount] = id;
+        releasedCount++;
+    }
+
+    /**
+     * Returns the number of identifiers assigned so far - identifiers range from <code>0</code> to
+     * <code>size() - 1</code>. This is the number of registered vertices if no identifier is
+     * currently released.
+     *
+     * @return the number of identifiers assigned so far
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the vertex registered under the specified identifier.
+     *
+     * @param id the identifier
+     * @return the vertex registered under the specified identifier
+     */
+    final PositionVector vertex(final int id) {
+        return vertices[id];
+    }
+
+    /**
+     * Returns the identifier of the vertex registered in the specified cell or <code>-1</code>.
+     */
+    private int find(final int cx, final int cy, final int cz) {
+        final int mask = table.length - 1;
+        int slot = slot(cx, cy, cz, mask);
+        while (table[slot] != 0) {
+            final int id = table[slot] - 1;
+            final int c = 3 * id;
+            if (cells[c] == cx && cells[c + 1] == cy && cells[c + 2] == cz) {
+                return id;
+            }
+            slot = slot + 1 & mask;
+        }
+        return -1;
+    }
+
+    private void insert(final int id) {
+        final int mask = table.length - 1;
+        final int c = 3 * id;
+        int slot = slot(cells[c], cells[c + 1], cells[c + 2], mask);
+        while (table[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    private void rehash(final int capacity) {
+        table = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            if (vertices[id] != null) {
+                insert(id);
+            }
+        }
+    }
+
+    private static int cell(final double component) {
+        return (int) Math.floor(component / CELL_SIZE);
+    }
+
+    private static int slot(final int cx, final int cy, final int cz, final int mask) {
+        int h = cx * 0x9E3779B1 + cy * 0x85EBCA77 + cz * 0xC2B2AE3D;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+}
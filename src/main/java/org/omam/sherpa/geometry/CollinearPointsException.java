@@ -7,7 +7,14 @@ public final class CollinearPointsException extends GeometryException {
      */
     private static final long serialVersionUID = 7722688026862787774L;
 
-    CollinearPointsException(final PositionVector v0, final PositionVector v1, final PositionVector v2) {
+    /**
+     * Constructs a new <code>CollinearPointsException</code> for the specified three points.
+     * 
+     * @param v0 first point
+     * @param v1 second point
+     * @param v2 third point
+     */
+    public CollinearPointsException(final PositionVector v0, final PositionVector v1, final PositionVector v2) {
         super(msg(v0, v1, v2));
     }
 
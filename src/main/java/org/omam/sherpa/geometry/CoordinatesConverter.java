@@ -12,12 +12,56 @@ public final class CoordinatesConverter {
         return new PositionVector(x, y, z);
     }
 
+    /**
+     * Returns the geodetic coordinates <code>[latitude, longitude]</code> in degrees of the
+     * specified vector. The conversion is done once per vector and cached, see
+     * {@link #latitude(PositionVector)} and {@link #longitude(PositionVector)}.
+     * 
+     * @param v the vector
+     * @return a new array containing the latitude and the longitude of the vector in degrees
+     */
     public static final double[] toGeodetic(final PositionVector v) {
-        final double latRad = Math.atan2(v.z(), Math.sqrt(Math.pow(v.x(), 2.0) + Math.pow(v.y(), 2.0)));
-        final double longRad = Math.atan2(v.y(), v.x());
-        return new double[] { Math.toDegrees(latRad), Math.toDegrees(longRad) };
+        return v.geodetic().clone();
     }
-    
+
+    /**
+     * Converts the specified cartesian coordinates into geodetic coordinates: the vector
+     * <code>i</code> given by <code>[xyz[3i], xyz[3i + 1], xyz[3i + 2]]</code> is converted into
+     * <code>[latlon[2i], latlon[2i + 1]]</code> - latitude and longitude in degrees.
+     * 
+     * @param xyz the cartesian coordinates of the vectors
+     * @param latlon the array receiving the geodetic coordinates - its length shall be at least
+     *            two thirds of the length of the cartesian coordinates array
+     */
+    public static final void toGeodetic(final double[] xyz, final double[] latlon) {
+        final int count = xyz.length / 3;
+        for (int i = 0; i < count; i++) {
+            toGeodetic(xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2], latlon, 2 * i);
+        }
+    }
+
+    /**
+     * Returns the latitude in degrees of the specified vector. The conversion is done once per
+     * vector and cached.
+     * 
+     * @param v the vector
+     * @return the latitude in degrees of the specified vector
+     */
+    public static final double latitude(final PositionVector v) {
+        return v.geodetic()[0];
+    }
+
+    /**
+     * Returns the longitude in degrees of the specified vector. The conversion is done once per
+     * vector and cached.
+     * 
+     * @param v the vector
+     * @return the longitude in degrees of the specified vector
+     */
+    public static final double longitude(final PositionVector v) {
+        return v.geodetic()[1];
+    }
+
     public static final String toGeodeticString(final PositionVector v) {
         final double[] latlon = toGeodetic(v);
         final StringBuffer sb = new StringBuffer("[lat: ");
@@ -28,4 +72,13 @@ public final class CoordinatesConverter {
         return sb.toString();
     }
 
+    /**
+     * Converts the cartesian coordinates <code>[x, y, z]</code> into latitude and longitude in
+     * degrees, stored at the specified offset of the specified array.
+     */
+    static void toGeodetic(final double x, final double y, final double z, final double[] latlon, final int offset) {
+        latlon[offset] = Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+        latlon[offset + 1] = Math.toDegrees(Math.atan2(y, x));
+    }
+
 }
@@ -1,8 +1,5 @@
 package org.omam.sherpa.geometry;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * A closed segment of great circle. This arc represent the shortest path on the surface of the
  * sphere from its <code>from</code> {@link PositionVector point} to its <code>to</code>
@@ -33,7 +30,27 @@ public final class GreatArc {
      * @throws GeometryException if the two end points are either identical or antipodal
      */
     public GreatArc(final PositionVector fromPosition, final PositionVector toPosition) throws GeometryException {
+        checkEndPoints(fromPosition, toPosition);
+
+        from = fromPosition;
+        to = toPosition;
 
+        /*
+         * the normal vector to the plan of the great circle defined by this great arc.
+         */
+        normal = from.cross(to);
+
+    }
+
+    /**
+     * Checks that the specified points can be the end points of a great arc.
+     * 
+     * @param fromPosition from {@link PositionVector point}
+     * @param toPosition to {@link PositionVector point}
+     * @throws GeometryException if the two end points are either identical or antipodal
+     */
+    static void checkEndPoints(final PositionVector fromPosition, final PositionVector toPosition)
+            throws GeometryException {
         /*
          * start and end must be different
          */
@@ -45,18 +62,11 @@ public final class GreatArc {
          * start and end must not be antipodal - since an infinity of great circles pass through 2
          * antipodal points.
          */
-        if (fromPosition.antipode().equals(toPosition)) {
+        if (PositionVector.equals(-fromPosition.x(), toPosition.x())
+                && PositionVector.equals(-fromPosition.y(), toPosition.y())
+                && PositionVector.equals(-fromPosition.z(), toPosition.z())) {
             throw new AntipodalEndPointsException(fromPosition, toPosition);
         }
-
-        from = fromPosition;
-        to = toPosition;
-
-        /*
-         * the normal vector to the plan of the great circle defined by this great arc.
-         */
-        normal = from.cross(to);
-
     }
 
     /**
@@ -68,12 +78,7 @@ public final class GreatArc {
      *         this great arc
      */
     public final boolean contains(final PositionVector p) {
-        try {
-            p.leftOf(from, to);
-            return false;
-        } catch (final CollinearPointsException e) {
-            return isWithin(p);
-        }
+        return p.side(from, to) == Side.COLLINEAR && isWithin(p);
     }
 
     @Override
@@ -126,34 +131,40 @@ public final class GreatArc {
      */
     public final PositionVector intersection(final GreatArc o, final boolean includeEndPoints) {
         final PositionVector result;
-        final PositionVector[] common = commonPoints(o);
-        if (common.length == 1) {
+        final boolean commonFrom = from.equals(o.from) || from.equals(o.to);
+        final boolean commonTo = to.equals(o.from) || to.equals(o.to);
+        if (commonFrom && commonTo) {
+            result = null;
+        } else if (commonFrom || commonTo) {
             if (includeEndPoints) {
-                result = common[0];
+                result = commonFrom ? from : to;
             } else {
                 result = null;
             }
-        } else if (common.length == 2) {
-            result = null;
+        } else if (crossesStrictly(o)) {
+            result = crossing(o);
         } else {
-            final PositionVector[] intersections = intersections(o);
-            if (intersections == null) {
-                result = null;
-            } else {
-                final PositionVector first = intersections[0];
-                final PositionVector anti = intersections[1];
-                if (isWithin(first) && o.isWithin(first)) {
-                    result = first;
-                } else if (this.isWithin(anti) && o.isWithin(anti)) {
-                    result = anti;
-                } else {
-                    result = null;
-                }
-            }
+            result = null;
         }
         return result;
     }
 
+    /**
+     * Returns <code>true</code> if this great arc and the specified other great arc cross each
+     * other at a point which is not an end point of any of them. Arcs sharing an end point or lying
+     * on the same great circle do not cross. Unlike {@link #intersection(GreatArc, boolean)}, this
+     * method allocates nothing and uses exact orientation signs only, see
+     * {@link #crossesStrictly(GreatArc)}.
+     * 
+     * @param o the other great arc
+     * @return <code>true</code> if the two great arcs cross each other
+     */
+    public final boolean crosses(final GreatArc o) {
+        final boolean sharedEndPoint = from.equals(o.from) || from.equals(o.to) || to.equals(o.from)
+                || to.equals(o.to);
+        return !sharedEndPoint && crossesStrictly(o);
+    }
+
     /**
      * Returns <code>true</code> if the the two great arcs intersect - i.e. both great arcs contain
      * one of the two antipodals intersections of their respective great circles. Includes end
@@ -167,7 +178,17 @@ public final class GreatArc {
      * @return <code>true</code> if the the two great arcs intersect
      */
     public final boolean intersects(final GreatArc o, final boolean includeEndPoints) {
-        return intersection(o, includeEndPoints) != null;
+        final boolean commonFrom = from.equals(o.from) || from.equals(o.to);
+        final boolean commonTo = to.equals(o.from) || to.equals(o.to);
+        final boolean result;
+        if (commonFrom && commonTo) {
+            result = false;
+        } else if (commonFrom || commonTo) {
+            result = includeEndPoints;
+        } else {
+            result = crossesStrictly(o);
+        }
+        return result;
     }
 
     /**
@@ -178,7 +199,11 @@ public final class GreatArc {
      *         end points
      */
     public final PositionVector midPoint() {
-        return from.add(to).normalize();
+        final double sx = from.x() + to.x();
+        final double sy = from.y() + to.y();
+        final double sz = from.z() + to.z();
+        final double scale = 1.0 / VectorMath.norm(sx, sy, sz);
+        return new PositionVector(sx * scale, sy * scale, sz * scale);
     }
 
     /**
@@ -211,61 +236,75 @@ public final class GreatArc {
     }
 
     /**
-     * Returns the common points between this great arc and the other specified great arc.
+     * Returns the point at which this great arc and the specified other great arc - which shall
+     * {@link #crossesStrictly(GreatArc) cross} - cross: the one of the two antipodal intersections
+     * of their great circles which lies on this great arc.
      * 
      * @param o the other great arc
-     * @return an array containing <code>0</code>, <code>1</code> or <code>2</code> common points.
+     * @return the point at which the two great arcs cross
      */
-    private PositionVector[] commonPoints(final GreatArc o) {
-        final List<PositionVector> result = new ArrayList<PositionVector>();
-        if (from.equals(o.from) || from.equals(o.to)) {
-            result.add(from);
+    private PositionVector crossing(final GreatArc o) {
+        final double[] i = new double[3];
+        if (!VectorMath.intersection(normal.x(), normal.y(), normal.z(), o.normal.x(), o.normal.y(), o.normal.z(), i,
+                0)) {
+            // crossing arcs are not on the same great circle: only happens through underflow.
+            return null;
         }
-
-        if (to.equals(o.from) || to.equals(o.to)) {
-            result.add(to);
-        }
-        return result.toArray(new PositionVector[result.size()]);
+        final PositionVector first = new PositionVector(i[0], i[1], i[2]);
+        return isWithin(first) ? first : first.antipode();
     }
 
     /**
-     * Returns the two antipodal intersections of the two great circles defined by this great arc
-     * and the specified other great arc. Returns <code>null</code> if the two great circles are the
-     * same.
-     * <p>
-     * This method assumes a spherical model
+     * Returns <code>true</code> if the interiors of this great arc <code>(a, b)</code> and of the
+     * specified other great arc <code>(c, d)</code> cross each other, using exact orientation
+     * signs. The four triangles <code>(a, c, b)</code>, <code>(b, d, a)</code>,
+     * <code>(c, b, d)</code> and <code>(d, a, c)</code> must have the same strict orientation: the
+     * first two orientations tell that c and d are on either side of the great circle of this arc,
+     * the last two that a and b are on either side of the great circle of the other arc, and
+     * comparing all four - rather than two pairs - rules out arcs containing two antipodal
+     * intersections.
      * 
      * @param o the other great arc
-     * @return the two antipodal intersections of the two great circles defined by this great arc
-     *         and the specified other great arc. Returns <code>null</code> if the two great circles
-     *         are the same
+     * @return <code>true</code> if the interiors of the two great arcs cross each other
      */
-    private PositionVector[] intersections(final GreatArc o) {
-        final PositionVector tcn = from.cross(to).normalize();
-        final PositionVector ocn = o.from.cross(o.to).normalize();
-        final PositionVector intersection = tcn.cross(ocn).normalize();
-        final PositionVector[] result;
-        if (Double.isNaN(intersection.x()) || Double.isNaN(intersection.y()) || Double.isNaN(intersection.z())) {
-            result = null;
-        } else {
-            final PositionVector anti = intersection.antipode();
-            result = new PositionVector[] { intersection, anti };
+    private boolean crossesStrictly(final GreatArc o) {
+        final double ax = from.x();
+        final double ay = from.y();
+        final double az = from.z();
+        final double bx = to.x();
+        final double by = to.y();
+        final double bz = to.z();
+        final double cx = o.from.x();
+        final double cy = o.from.y();
+        final double cz = o.from.z();
+        final double dx = o.to.x();
+        final double dy = o.to.y();
+        final double dz = o.to.z();
+        final int acb = Predicates.orient(ax, ay, az, cx, cy, cz, bx, by, bz);
+        if (acb == 0 || Predicates.orient(bx, by, bz, dx, dy, dz, ax, ay, az) != acb) {
+            return false;
         }
-        return result;
+        return Predicates.orient(cx, cy, cz, bx, by, bz, dx, dy, dz) == acb
+                && Predicates.orient(dx, dy, dz, ax, ay, az, cx, cy, cz) == acb;
     }
 
     /**
      * Returns <code>true</code> if and only if this great arc contains the specified point
-     * <strong>that belongs to the great circle defined by this great arc</strong>. This method is
-     * intended to be used only by {@link #intersections(GreatArc)}.
+     * <strong>that belongs to the great circle defined by this great arc</strong>: the point lies
+     * strictly between both end points. Used by {@link #contains(PositionVector)} once the point
+     * is known to be on the great circle, and by {@link #crossing(GreatArc)} to pick the
+     * intersection lying on this great arc.
      * 
      * @param p the point
      * @return <code>true</code> if and only if this great arc contains the specified point
      */
     private boolean isWithin(final PositionVector p) {
-        final PositionVector normalStartPoint = from.cross(p);
-        final PositionVector normalEndPoint = p.cross(to);
-        return normal.dot(normalStartPoint) > 0.0 && normal.dot(normalEndPoint) > 0.0;
+        // normal . (from x p) > 0 and normal . (p x to) > 0
+        final double nx = normal.x();
+        final double ny = normal.y();
+        final double nz = normal.z();
+        return VectorMath.tripleProduct(nx, ny, nz, from.x(), from.y(), from.z(), p.x(), p.y(), p.z()) > 0.0
+                && VectorMath.tripleProduct(nx, ny, nz, p.x(), p.y(), p.z(), to.x(), to.y(), to.z()) > 0.0;
     }
 
 }
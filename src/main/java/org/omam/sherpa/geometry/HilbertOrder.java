@@ -0,0 +1,125 @@
+package org.omam.sherpa.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders {@link PositionVector points} along a space-filling curve on the sphere, so that points
+ * close to each other in the returned order are close to each other on the sphere.
+ * <p>
+ * Each point is projected onto the face of the cube enclosing the sphere that is crossed by the
+ * vector of the point; points are then sorted by face and, within a face, by their index along a
+ * Hilbert curve covering the face.
+ */
+public final class HilbertOrder {
+
+    /** order of the Hilbert curve: each cube face is divided into 2^ORDER x 2^ORDER cells. */
+    private static final int ORDER = 16;
+
+    private static final int SIDE = 1 << ORDER;
+
+    /**
+     * Constructor.
+     */
+    private HilbertOrder() {
+        // static methods only.
+    }
+
+    /**
+     * Returns a new list containing the specified points sorted along the Hilbert curve.
+     * 
+     * @param points the points to be sorted
+     * @return a new list containing the specified points sorted along the Hilbert curve
+     */
+    public static List<PositionVector> sort(final Collection<PositionVector> points) {
+        final int size = points.size();
+        final long[] keys = new long[size];
+        final PositionVector[] sorted = points.toArray(new PositionVector[size]);
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key(sorted[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer i1, final Integer i2) {
+                final long k1 = keys[i1];
+                final long k2 = keys[i2];
+                return k1 < k2 ? -1 : k1 == k2 ? 0 : 1;
+            }
+        });
+        final List<PositionVector> result = new ArrayList<PositionVector>(size);
+        for (final Integer i : order) {
+            result.add(sorted[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the specified point along the curve: cube face in the high 32 bits and
+     * Hilbert index within the face in the low 32 bits.
+     * 
+     * @param p the point
+     * @return the key of the specified point along the curve
+     */
+    static long key(final PositionVector p) {
+        final double ax = Math.abs(p.x());
+        final double ay = Math.abs(p.y());
+        final double az = Math.abs(p.z());
+        final int face;
+        final double u;
+        final double v;
+        if (ax >= ay && ax >= az) {
+            face = p.x() > 0.0 ? 0 : 1;
+            u = p.y() / ax;
+            v = p.z() / ax;
+        } else if (ay >= az) {
+            face = p.y() > 0.0 ? 2 : 3;
+            u = p.z() / ay;
+            v = p.x() / ay;
+        } else {
+            face = p.z() > 0.0 ? 4 : 5;
+            u = p.x() / az;
+            v = p.y() / az;
+        }
+        return (long) face << 32 | hilbertIndex(cell(u), cell(v));
+    }
+
+    /**
+     * Returns the cell index of the specified face coordinate in <code>[-1, 1]</code>.
+     */
+    private static int cell(final double c) {
+        final int result = (int) ((c + 1.0) * 0.5 * SIDE);
+        return Math.min(Math.max(result, 0), SIDE - 1);
+    }
+
+    /**
+     * Returns the index along the Hilbert curve of the cell <code>(x, y)</code>.
+     */
+    private static long hilbertIndex(final int cellX, final int cellY) {
+        int x = cellX;
+        int y = cellY;
+        long d = 0L;
+        for (int s = SIDE / 2; s > 0; s /= 2) {
+            final int rx = (x & s) > 0 ? 1 : 0;
+            final int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * (3 * rx ^ ry);
+            // rotate the quadrant so that the curve is continuous
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                final int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+}
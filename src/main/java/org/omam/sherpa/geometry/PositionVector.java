@@ -6,7 +6,11 @@ package org.omam.sherpa.geometry;
  */
 public final class PositionVector {
 
-    private static final double CARTESIAN_EPSILON = 1.0 / (111000.0 * 90.0);
+    /**
+     * tolerance used to compare the components of vectors, see {@link #equals(Object)}: about one
+     * metre on the surface of the Earth.
+     */
+    public static final double CARTESIAN_EPSILON = 1.0 / (111000.0 * 90.0);
 
     private final double x;
 
@@ -14,6 +18,12 @@ public final class PositionVector {
 
     private final double z;
 
+    /**
+     * geodetic coordinates <code>[latitude, longitude]</code> in degrees - computed on first use.
+     * The array is never modified once assigned so that it can be safely shared between threads.
+     */
+    private volatile double[] geodetic;
+
     /**
      * Constructs a new <code>PositionVector</code> from the specified components.
      * 
@@ -21,10 +31,11 @@ public final class PositionVector {
      * @param aY y component of the vector
      * @param aZ z component of the vector
      */
-    PositionVector(final double aX, final double aY, final double aZ) {
+    public PositionVector(final double aX, final double aY, final double aZ) {
         x = aX;
         y = aY;
         z = aZ;
+        geodetic = null;
     }
 
     @Override
@@ -62,9 +73,28 @@ public final class PositionVector {
         return result;
     }
 
+    /**
+     * Returns the geodetic coordinates <code>[latitude, longitude]</code> in degrees of this vector,
+     * computing them on first use. The returned array shall not be modified.
+     * 
+     * @return the geodetic coordinates of this vector
+     */
+    final double[] geodetic() {
+        double[] result = geodetic;
+        if (result == null) {
+            result = new double[2];
+            CoordinatesConverter.toGeodetic(x, y, z, result, 0);
+            geodetic = result;
+        }
+        return result;
+    }
+
     /**
      * Returns <code>true</code> if and only if this vector is on the left of the line defined by
      * the specified two other vectors.
+     * <p>
+     * This method throws an exception when the vectors are collinear; use
+     * {@link #side(PositionVector, PositionVector)} when collinearity is an expected outcome.
      * 
      * @param v1 first vector
      * @param v2 second vector
@@ -73,12 +103,39 @@ public final class PositionVector {
      * @throws CollinearPointsException if this vector and the two specified vectors are collinear
      */
     public final boolean leftOf(final PositionVector v1, final PositionVector v2) throws CollinearPointsException {
-        // sign of scalar triple product must be +
-        final double stp = dot(v1.cross(v2));
-        if (Math.abs(stp) < CARTESIAN_EPSILON) {
+        final Side side = side(v1, v2);
+        if (side == Side.COLLINEAR) {
             throw new CollinearPointsException(this, v1, v2);
         }
-        return stp > CARTESIAN_EPSILON;
+        return side == Side.LEFT;
+    }
+
+    /**
+     * Returns the {@link Side side} of this vector with respect to the line defined by the
+     * specified two other vectors.
+     * <p>
+     * This vector is deemed collinear when it is within {@link #CARTESIAN_EPSILON} of the great
+     * circle going through the two other vectors, so that points which are equal to a point of an
+     * edge snap onto that edge - see {@link GreatArc#contains(PositionVector)}. Otherwise the side is
+     * the exact sign given by {@link Predicates#orient(PositionVector, PositionVector, PositionVector)}.
+     * 
+     * @param v1 first vector
+     * @param v2 second vector
+     * @return {@link Side#LEFT}, {@link Side#RIGHT} or {@link Side#COLLINEAR} if this vector and
+     *         the two specified vectors are collinear
+     */
+    public final Side side(final PositionVector v1, final PositionVector v2) {
+        // snapping tolerance: intended, see above.
+        final double stp = VectorMath.tripleProduct(x, y, z, v1.x, v1.y, v1.z, v2.x, v2.y, v2.z);
+        final Side result;
+        if (Math.abs(stp) < CARTESIAN_EPSILON) {
+            result = Side.COLLINEAR;
+        } else if (Predicates.orient(this, v1, v2) > 0) {
+            result = Side.LEFT;
+        } else {
+            result = Side.RIGHT;
+        }
+        return result;
     }
 
     @Override
@@ -120,7 +177,7 @@ public final class PositionVector {
      * <strong>spherical model</strong> from this vector to the specified position vector.
      */
     final double distance(final PositionVector to) {
-        return Math.atan2(cross(to).norm(), dot(to));
+        return VectorMath.distance(x, y, z, to.x, to.y, to.z);
     }
 
     /**
@@ -131,7 +188,7 @@ public final class PositionVector {
      * @return the dot product of this vector and the specified other vector
      */
     final double dot(final PositionVector o) {
-        return x * o.x + y * o.y + z * o.z;
+        return VectorMath.dot(x, y, z, o.x, o.y, o.z);
     }
 
     /**
@@ -140,7 +197,7 @@ public final class PositionVector {
      * @return the norm of this vector
      */
     final double norm() {
-        return Math.sqrt(Math.pow(x, 2.0) + Math.pow(y, 2.0) + Math.pow(z, 2.0));
+        return VectorMath.norm(x, y, z);
     }
 
     /**
@@ -170,15 +227,30 @@ public final class PositionVector {
         return new PositionVector(x - o.x, y - o.y, z - o.z);
     }
 
-    final double x() {
+    /**
+     * Returns the x component of this vector.
+     * 
+     * @return the x component of this vector
+     */
+    public final double x() {
         return x;
     }
 
-    final double y() {
+    /**
+     * Returns the y component of this vector.
+     * 
+     * @return the y component of this vector
+     */
+    public final double y() {
         return y;
     }
 
-    final double z() {
+    /**
+     * Returns the z component of this vector.
+     * 
+     * @return the z component of this vector
+     */
+    public final double z() {
         return z;
     }
 
@@ -0,0 +1,165 @@
+package org.omam.sherpa.geometry;
+
+import java.math.BigDecimal;
+
+/**
+ * Robust geometric predicates on the sphere.
+ * <p>
+ * Each predicate is first evaluated in floating-point arithmetic; the sign of the result is
+ * returned straight away when its magnitude exceeds the forward error bound of the computation
+ * (see Shewchuk: <i>"Adaptive Precision Floating-Point Arithmetic and Fast Robust Geometric
+ * Predicates"</i>). Otherwise the predicate is evaluated again using exact arithmetic, so that the
+ * returned sign is always the sign of the exact result for the given double coordinates.
+ */
+public final class Predicates {
+
+    /** half of the distance between 1.0 and the next double: 2^-53. */
+    private static final double EPSILON = Math.ulp(1.0) / 2.0;
+
+    /** error bound of the floating-point evaluation of a 3x3 determinant of differences. */
+    private static final double O3D_ERRBOUND = (7.0 + 56.0 * EPSILON) * EPSILON;
+
+    /**
+     * Constructor.
+     */
+    private Predicates() {
+        // static methods only.
+    }
+
+    /**
+     * Returns the sign of the circumcircle test of the specified point d w.r.t. the triangle
+     * <code>(a, b, c)</code> whose vertices are oriented counterclockwise. All points are assumed to
+     * be on the surface of the sphere.
+     * <p>
+     * The circumcircle of the triangle is the intersection of the sphere and the plane containing
+     * its three vertices, so the test is the sign of
+     * <code>(d - a) &middot; ((b - a) &times; (c - a))</code>.
+     * 
+     * @param a first vertex of the triangle
+     * @param b second vertex of the triangle
+     * @param c third vertex of the triangle
+     * @param d the point to be tested
+     * @return <code>1</code> if d is strictly within the circumcircle of the triangle,
+     *         <code>-1</code> if d is strictly outside the circumcircle and <code>0</code> if d is
+     *         on the circumcircle
+     */
+    public static int inCircle(final PositionVector a, final PositionVector b, final PositionVector c,
+            final PositionVector d) {
+        return inCircle(a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z(), d.x(), d.y(), d.z());
+    }
+
+    /**
+     * Returns the sign of the circumcircle test of the point d w.r.t. the triangle
+     * <code>(a, b, c)</code> given by their raw components - see
+     * {@link #inCircle(PositionVector, PositionVector, PositionVector, PositionVector)}.
+     * 
+     * @return <code>1</code> if d is strictly within the circumcircle of the triangle,
+     *         <code>-1</code> if d is strictly outside the circumcircle and <code>0</code> if d is
+     *         on the circumcircle
+     */
+    public static int inCircle(final double ax, final double ay, final double az, final double bx,
+            final double by, final double bz, final double cx, final double cy, final double cz, final double dx,
+            final double dy, final double dz) {
+        return orient3d(bx, by, bz, cx, cy, cz, dx, dy, dz, ax, ay, az);
+    }
+
+    /**
+     * Returns the sign of the scalar triple product <code>a &middot; (b &times; c)</code>: i.e. the
+     * orientation of a w.r.t. the great circle going through b and c.
+     * 
+     * @param a the point to be tested
+     * @param b first point defining the great circle
+     * @param c second point defining the great circle
+     * @return <code>1</code> if a is strictly on the left of the great circle, <code>-1</code> if a
+     *         is strictly on the right and <code>0</code> if the three points are exactly coplanar
+     *         with the origin
+     */
+    public static int orient(final PositionVector a, final PositionVector b, final PositionVector c) {
+        return orient(a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z());
+    }
+
+    /**
+     * Returns the sign of the scalar triple product <code>a &middot; (b &times; c)</code> of the
+     * points given by their raw components - see
+     * {@link #orient(PositionVector, PositionVector, PositionVector)}.
+     * 
+     * @return <code>1</code> if a is strictly on the left of the great circle, <code>-1</code> if a
+     *         is strictly on the right and <code>0</code> if the three points are exactly coplanar
+     *         with the origin
+     */
+    public static int orient(final double ax, final double ay, final double az, final double bx, final double by,
+            final double bz, final double cx, final double cy, final double cz) {
+        return orient3d(ax, ay, az, bx, by, bz, cx, cy, cz, 0.0, 0.0, 0.0);
+    }
+
+    /**
+     * Returns the sign of the determinant <code>| a - d, b - d, c - d |</code>.
+     * 
+     * @return the sign of the determinant <code>| a - d, b - d, c - d |</code>
+     */
+    private static int orient3d(final double ax, final double ay, final double az, final double bx,
+            final double by, final double bz, final double cx, final double cy, final double cz, final double dx,
+            final double dy, final double dz) {
+        final double adx = ax - dx;
+        final double bdx = bx - dx;
+        final double cdx = cx - dx;
+        final double ady = ay - dy;
+        final double bdy = by - dy;
+        final double cdy = cy - dy;
+        final double adz = az - dz;
+        final double bdz = bz - dz;
+        final double cdz = cz - dz;
+
+        final double bdxcdy = bdx * cdy;
+        final double cdxbdy = cdx * bdy;
+        final double cdxady = cdx * ady;
+        final double adxcdy = adx * cdy;
+        final double adxbdy = adx * bdy;
+        final double bdxady = bdx * ady;
+
+        final double det = adz * (bdxcdy - cdxbdy) + bdz * (cdxady - adxcdy) + cdz * (adxbdy - bdxady);
+        final double permanent = (Math.abs(bdxcdy) + Math.abs(cdxbdy)) * Math.abs(adz)
+                + (Math.abs(cdxady) + Math.abs(adxcdy)) * Math.abs(bdz) + (Math.abs(adxbdy) + Math.abs(bdxady))
+                * Math.abs(cdz);
+        final double errbound = O3D_ERRBOUND * permanent;
+        final int result;
+        if (det > errbound) {
+            result = 1;
+        } else if (-det > errbound) {
+            result = -1;
+        } else {
+            result = orient3dExact(ax, ay, az, bx, by, bz, cx, cy, cz, dx, dy, dz);
+        }
+        return result;
+    }
+
+    /**
+     * Exact evaluation of {@link #orient3d}: every double is exactly representable as a
+     * {@link BigDecimal} and sums and products of {@link BigDecimal} are exact.
+     * 
+     * @return the sign of the determinant <code>| a - d, b - d, c - d |</code>
+     */
+    private static int orient3dExact(final double ax, final double ay, final double az, final double bx,
+            final double by, final double bz, final double cx, final double cy, final double cz, final double dx,
+            final double dy, final double dz) {
+        final BigDecimal adx = exact(ax).subtract(exact(dx));
+        final BigDecimal bdx = exact(bx).subtract(exact(dx));
+        final BigDecimal cdx = exact(cx).subtract(exact(dx));
+        final BigDecimal ady = exact(ay).subtract(exact(dy));
+        final BigDecimal bdy = exact(by).subtract(exact(dy));
+        final BigDecimal cdy = exact(cy).subtract(exact(dy));
+        final BigDecimal adz = exact(az).subtract(exact(dz));
+        final BigDecimal bdz = exact(bz).subtract(exact(dz));
+        final BigDecimal cdz = exact(cz).subtract(exact(dz));
+
+        final BigDecimal t1 = adz.multiply(bdx.multiply(cdy).subtract(cdx.multiply(bdy)));
+        final BigDecimal t2 = bdz.multiply(cdx.multiply(ady).subtract(adx.multiply(cdy)));
+        final BigDecimal t3 = cdz.multiply(adx.multiply(bdy).subtract(bdx.multiply(ady)));
+        return t1.add(t2).add(t3).signum();
+    }
+
+    private static BigDecimal exact(final double d) {
+        return new BigDecimal(d);
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.omam.sherpa.geometry;
+
+/**
+ * Position of a {@link PositionVector point} with respect to the great circle defined by two other
+ * points, see {@link PositionVector#side(PositionVector, PositionVector)}.
+ */
+public enum Side {
+
+    /** the point is on the left of the great circle. */
+    LEFT,
+
+    /** the point is on the right of the great circle. */
+    RIGHT,
+
+    /** the point is on the great circle. */
+    COLLINEAR;
+
+}
@@ -1,6 +1,6 @@
 package org.omam.sherpa.geometry;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -8,18 +8,49 @@ import java.util.List;
  * The <code>Triangle</code> class describes a triangle defined by its three vertices on the
  * two-dimensional surface of a sphere. All triangles are oriented counterclockwise. Vertices are
  * instances of {@link PositionVector} and edges instances of {@link GreatArc}.
+ * <p>
+ * Only the three vertices are computed on construction: the lists of vertices and edges, the
+ * normals of the edge planes, the circumcircle and the centroid are computed on first use and
+ * cached, since many triangles - e.g. candidate triangles while retriangulating - are discarded
+ * without ever being queried. Cached values are immutable and published through
+ * <code>volatile</code> fields so that triangles can be queried concurrently; a value may be
+ * computed more than once by concurrent threads.
  */
 public final class Triangle {
 
-    private final List<PositionVector> vertices;
+    /** cosine of the tolerance used when comparing angular distances. */
+    private static final double COS_EPSILON = Math.cos(PositionVector.CARTESIAN_EPSILON);
 
-    private final List<GreatArc> edges;
+    /** sine of the tolerance used when comparing angular distances. */
+    private static final double SIN_EPSILON = Math.sin(PositionVector.CARTESIAN_EPSILON);
 
-    private final PositionVector circumcentre;
+    /**
+     * relative error bound of the dot product of a point with a cached edge normal: scaled by the
+     * magnitude of the point and of the vertices of the edge, see {@link #side(int, PositionVector)}.
+     */
+    private static final double NORMAL_ERRBOUND = 8.0 * Math.ulp(1.0);
+
+    private final PositionVector v0;
+
+    private final PositionVector v1;
+
+    private final PositionVector v2;
 
-    private final double circumradius;
+    private volatile List<PositionVector> vertices;
 
-    private final PositionVector centroid;
+    private volatile List<GreatArc> edges;
+
+    /**
+     * inward normals of the planes of the three edges: <code>v[i] &times; v[i + 1]</code> at
+     * <code>3i</code>, <code>3i + 1</code> and <code>3i + 2</code> - a point is on the left of edge
+     * i if its dot product with the normal of the edge is positive. The error bound of this dot
+     * product - relative to the magnitude of the point - is at <code>9</code>.
+     */
+    private volatile double[] normals;
+
+    private volatile Circumcircle circumcircle;
+
+    private volatile PositionVector centroid;
 
     /**
      * Constructor.
@@ -32,17 +63,19 @@ public final class Triangle {
      * @throws GeometryException if the three specified vertices do not define a triangle
      */
     public Triangle(final PositionVector v0, final PositionVector v1, final PositionVector v2) throws GeometryException {
-        vertices = orient(v0, v1, v2);
-        final List<GreatArc> edgeList = new ArrayList<GreatArc>();
-        edgeList.add(new GreatArc(vertices.get(0), vertices.get(1)));
-        edgeList.add(new GreatArc(vertices.get(1), vertices.get(2)));
-        edgeList.add(new GreatArc(vertices.get(2), vertices.get(0)));
-        edges = Collections.unmodifiableList(edgeList);
-
-        circumcentre = computeCircumcentre();
-        circumradius = circumcentre.distance(vertices.get(0));
-
-        centroid = computeCentroid();
+        if (v0.leftOf(v1, v2)) {
+            this.v0 = v0;
+            this.v1 = v1;
+            this.v2 = v2;
+        } else {
+            this.v0 = v2;
+            this.v1 = v1;
+            this.v2 = v0;
+        }
+        // edges are built lazily but shall be valid great arcs
+        GreatArc.checkEndPoints(this.v0, this.v1);
+        GreatArc.checkEndPoints(this.v1, this.v2);
+        GreatArc.checkEndPoints(this.v2, this.v0);
     }
 
     /**
@@ -55,7 +88,12 @@ public final class Triangle {
      * @return the centroid of this triangle
      */
     public final PositionVector centroid() {
-        return centroid;
+        PositionVector result = centroid;
+        if (result == null) {
+            result = computeCentroid();
+            centroid = result;
+        }
+        return result;
     }
 
     /**
@@ -70,7 +108,7 @@ public final class Triangle {
      * @return the circumcentre of this triangle
      */
     public final PositionVector circumcentre() {
-        return circumcentre;
+        return circumcircle().centre;
     }
 
     /**
@@ -82,8 +120,27 @@ public final class Triangle {
      *         the circumcicle of this triangle
      */
     public final boolean circumcircleContains(final PositionVector p) {
-        final double distanceToCc = p.distance(circumcentre);
-        return distanceToCc < circumradius || PositionVector.equals(distanceToCc, circumradius);
+        /*
+         * on the unit sphere, distance(p, cc) < circumradius + epsilon is equivalent to
+         * cos(distance(p, cc)) = p . cc > cos(circumradius + epsilon).
+         */
+        final Circumcircle c = circumcircle();
+        return p.dot(c.centre) > c.threshold;
+    }
+
+    /**
+     * Returns <code>true</code> if and only if the specified {@link PositionVector point} is
+     * strictly within the circumcircle of this triangle. Unlike
+     * {@link #circumcircleContains(PositionVector)}, this method uses an exact predicate (see
+     * {@link Predicates#inCircle(PositionVector, PositionVector, PositionVector, PositionVector)})
+     * and considers points on the circumcircle to be outside.
+     * 
+     * @param p the point to be tested
+     * @return <code>true</code> if and only if the specified {@link PositionVector point} is
+     *         strictly within the circumcicle of this triangle
+     */
+    public final boolean circumcircleStrictlyContains(final PositionVector p) {
+        return Predicates.inCircle(v0, v1, v2, p) > 0;
     }
 
     /**
@@ -97,27 +154,29 @@ public final class Triangle {
      *             with one of the {@link #edges() edge} of this triangle
      */
     public final boolean contains(final PositionVector p) throws CollinearPointsException {
+        // exact orientations: a point close to, but not on, an edge is not collinear with it
+        if (p.equals(v0) || p.equals(v1) || p.equals(v2)) {
+            return false;
+        }
         /*
-         * first check that point is one of the vertices and that it is within the circumcircle
+         * the triangle is oriented counterclockwise: the point is inside if it is on the left of
+         * all edges - which also rules out the antipode of an inside point, being on the right of
+         * all edges.
          */
+        final Side s0 = side(0, p);
+        final Side s1 = side(1, p);
+        final Side s2 = side(2, p);
         final boolean result;
-        if (vertices.contains(p)) {
+        if (s0 == Side.RIGHT || s1 == Side.RIGHT || s2 == Side.RIGHT) {
             result = false;
-        } else if (circumcircleContains(p)) {
-            /*
-             * rely on scalar triple product - note that result is also true for antipode of point
-             * but we are covered by the previous check.
-             */
-            boolean sameSide = true;
-            final boolean sideReference = p.leftOf(vertices.get(vertices.size() - 1), vertices.get(0));
-            for (int i = 0; i < vertices.size() - 1 && sameSide; i++) {
-                if (p.leftOf(vertices.get(i), vertices.get(i + 1)) != sideReference) {
-                    sameSide = false;
-                }
-            }
-            result = sameSide;
+        } else if (s0 == Side.COLLINEAR) {
+            throw new CollinearPointsException(p, v0, v1);
+        } else if (s1 == Side.COLLINEAR) {
+            throw new CollinearPointsException(p, v1, v2);
+        } else if (s2 == Side.COLLINEAR) {
+            throw new CollinearPointsException(p, v2, v0);
         } else {
-            result = false;
+            result = true;
         }
         return result;
     }
@@ -129,7 +188,18 @@ public final class Triangle {
      * @return the list of edges of this triangle
      */
     public final List<GreatArc> edges() {
-        return edges;
+        List<GreatArc> result = edges;
+        if (result == null) {
+            try {
+                result = Collections.unmodifiableList(Arrays.asList(new GreatArc(v0, v1), new GreatArc(v1, v2),
+                        new GreatArc(v2, v0)));
+            } catch (final GeometryException e) {
+                // end points have been checked on construction.
+                throw new IllegalStateException(e);
+            }
+            edges = result;
+        }
+        return result;
     }
 
     /**
@@ -142,17 +212,65 @@ public final class Triangle {
      *         this triangle
      */
     public final GreatArc opposedEdge(final PositionVector vertex) {
-        final int vIndex = vertices.indexOf(vertex);
-        if (vIndex == -1) {
+        final int eIndex;
+        if (vertex.equals(v0)) {
+            eIndex = 1;
+        } else if (vertex.equals(v1)) {
+            eIndex = 2;
+        } else if (vertex.equals(v2)) {
+            eIndex = 0;
+        } else {
             throw new IllegalArgumentException("PositionVector [" + vertex + "] is not a vertex of this triangle.");
         }
-        final int eIndex = vIndex == 2 ? 0 : vIndex + 1;
-        return edges.get(eIndex);
+        return edges().get(eIndex);
+    }
+
+    /**
+     * Returns the exact {@link Side side} of the specified {@link PositionVector point} with respect
+     * to the specified edge of this triangle, i.e. the sign of
+     * {@link Predicates#orient(PositionVector, PositionVector, PositionVector)}.
+     * <p>
+     * The dot product of the point with the cached normal of the edge plane is used as a filter:
+     * its sign is returned when its magnitude exceeds its error bound, otherwise the orientation
+     * is evaluated exactly. Unlike {@link PositionVector#side(PositionVector, PositionVector)}, no
+     * tolerance is applied: {@link Side#COLLINEAR} is only returned if the point is exactly on the
+     * great circle of the edge.
+     * 
+     * @param edge the index of the edge in the {@link #edges() edges} of this triangle:
+     *            <code>0</code>, <code>1</code> or <code>2</code>
+     * @param p the point
+     * @return {@link Side#LEFT} - i.e. towards the inside of this triangle, {@link Side#RIGHT} or
+     *         {@link Side#COLLINEAR}
+     */
+    public final Side side(final int edge, final PositionVector p) {
+        final double[] n = normals();
+        final int i = 3 * edge;
+        final double stp = VectorMath.dot(p.x(), p.y(), p.z(), n[i], n[i + 1], n[i + 2]);
+        final double errbound = n[9] * (Math.abs(p.x()) + Math.abs(p.y()) + Math.abs(p.z()));
+        final int sign;
+        if (stp > errbound) {
+            sign = 1;
+        } else if (-stp > errbound) {
+            sign = -1;
+        } else {
+            final PositionVector from = edge == 0 ? v0 : edge == 1 ? v1 : v2;
+            final PositionVector to = edge == 0 ? v1 : edge == 1 ? v2 : v0;
+            sign = Predicates.orient(p, from, to);
+        }
+        final Side result;
+        if (sign == 0) {
+            result = Side.COLLINEAR;
+        } else if (sign > 0) {
+            result = Side.LEFT;
+        } else {
+            result = Side.RIGHT;
+        }
+        return result;
     }
 
     @Override
     public final String toString() {
-        return vertices.toString();
+        return vertices().toString();
     }
 
     /**
@@ -162,48 +280,86 @@ public final class Triangle {
      * @return the list of vertices of this triangle
      */
     public final List<PositionVector> vertices() {
-        return vertices;
+        List<PositionVector> result = vertices;
+        if (result == null) {
+            result = Collections.unmodifiableList(Arrays.asList(v0, v1, v2));
+            vertices = result;
+        }
+        return result;
+    }
+
+    private double[] normals() {
+        double[] result = normals;
+        if (result == null) {
+            result = new double[10];
+            VectorMath.cross(v0.x(), v0.y(), v0.z(), v1.x(), v1.y(), v1.z(), result, 0);
+            VectorMath.cross(v1.x(), v1.y(), v1.z(), v2.x(), v2.y(), v2.z(), result, 3);
+            VectorMath.cross(v2.x(), v2.y(), v2.z(), v0.x(), v0.y(), v0.z(), result, 6);
+            // each normal component is off by a few ulps of the product of the largest components
+            final double m = Math.max(max(v0), Math.max(max(v1), max(v2)));
+            result[9] = NORMAL_ERRBOUND * m * m;
+            normals = result;
+        }
+        return result;
     }
 
-    private PositionVector computeCentroid() throws GeometryException {
-        final GreatArc e0 = edges.get(0);
-        final PositionVector v0 = e0.midPoint();
-        final GreatArc median1 = new GreatArc(v0, vertices.get(2));
-        final GreatArc e1 = edges.get(1);
-        final PositionVector v1 = e1.midPoint();
-        final GreatArc median2 = new GreatArc(v1, vertices.get(0));
-        return median1.intersection(median2, false);
+    private static double max(final PositionVector v) {
+        return Math.max(Math.abs(v.x()), Math.max(Math.abs(v.y()), Math.abs(v.z())));
+    }
+
+    private Circumcircle circumcircle() {
+        Circumcircle result = circumcircle;
+        if (result == null) {
+            final PositionVector centre = computeCircumcentre();
+            // cos(r + e) = cos(r).cos(e) - sin(r).sin(e)
+            final double cosR = centre.dot(v0);
+            final double[] c = new double[3];
+            VectorMath.cross(centre.x(), centre.y(), centre.z(), v0.x(), v0.y(), v0.z(), c, 0);
+            final double sinR = VectorMath.norm(c[0], c[1], c[2]);
+            result = new Circumcircle(centre, cosR * COS_EPSILON - sinR * SIN_EPSILON);
+            circumcircle = result;
+        }
+        return result;
+    }
+
+    private PositionVector computeCentroid() {
+        try {
+            final List<GreatArc> edgeList = edges();
+            final GreatArc median1 = new GreatArc(edgeList.get(0).midPoint(), v2);
+            final GreatArc median2 = new GreatArc(edgeList.get(1).midPoint(), v0);
+            return median1.intersection(median2, false);
+        } catch (final GeometryException e) {
+            // medians of a valid triangle are valid great arcs.
+            throw new IllegalStateException(e);
+        }
     }
 
     private PositionVector computeCircumcentre() {
         // thanks to STRIPACK:
         // http://orion.math.iastate.edu/burkardt/f_src/stripack/stripack.f90
-        final PositionVector v0 = vertices.get(0);
-        final PositionVector v1 = vertices.get(1);
-        final PositionVector v2 = vertices.get(2);
-        final PositionVector e0 = v1.subtract(v0);
-        final PositionVector e1 = v2.subtract(v0);
-        final PositionVector cu = e0.cross(e1);
-        final double divisor = 1.0 / cu.norm();
-        return cu.scale(divisor);
-    }
-
-    private static List<PositionVector> orient(final PositionVector p0, final PositionVector p1, final PositionVector p2)
-            throws CollinearPointsException {
-        /*
-         * first must be on the left of second -> third use scalar triple product; must be positive
-         */
-        final List<PositionVector> result = new ArrayList<PositionVector>();
-        if (p0.leftOf(p1, p2)) {
-            result.add(p0);
-            result.add(p1);
-            result.add(p2);
-        } else {
-            result.add(p2);
-            result.add(p1);
-            result.add(p0);
+        final double[] cu = new double[3];
+        VectorMath.cross(v1.x() - v0.x(), v1.y() - v0.y(), v1.z() - v0.z(), v2.x() - v0.x(), v2.y() - v0.y(),
+                v2.z() - v0.z(), cu, 0);
+        final double divisor = 1.0 / VectorMath.norm(cu[0], cu[1], cu[2]);
+        return new PositionVector(cu[0] * divisor, cu[1] * divisor, cu[2] * divisor);
+    }
+
+    /**
+     * The circumcircle of a triangle: its centre and the cosine of its radius augmented by the
+     * tolerance - a point p is within the circumcircle if <code>p &middot; centre</code> is greater
+     * than this threshold.
+     */
+    private static final class Circumcircle {
+
+        private final PositionVector centre;
+
+        private final double threshold;
+
+        private Circumcircle(final PositionVector aCentre, final double aThreshold) {
+            centre = aCentre;
+            threshold = aThreshold;
         }
-        return Collections.unmodifiableList(result);
+
     }
 
 }
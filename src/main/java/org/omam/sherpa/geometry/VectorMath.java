@@ -0,0 +1,141 @@
+package org.omam.sherpa.geometry;
+
+/**
+ * Floating-point vector operations taking raw <code>x, y, z</code> components rather than
+ * {@link PositionVector} instances, so that predicates built upon them allocate nothing.
+ * <p>
+ * Operations producing a vector write its components into an array supplied by the caller. None of
+ * these operations is robust: see {@link Predicates} for exact signs.
+ */
+public final class VectorMath {
+
+    /**
+     * Constructor.
+     */
+    private VectorMath() {
+        // static methods only.
+    }
+
+    /**
+     * Writes the cross product <code>a &times; b</code> into the specified array at the specified
+     * offset.
+     *
+     * @param ax x component of a
+     * @param ay y component of a
+     * @param az z component of a
+     * @param bx x component of b
+     * @param by y component of b
+     * @param bz z component of b
+     * @param result the array receiving the components of the cross product
+     * @param offset the index of the x component in the array
+     */
+    public static void cross(final double ax, final double ay, final double az, final double bx, final double by,
+            final double bz, final double[] result, final int offset) {
+        result[offset] = ay * bz - az * by;
+        result[offset + 1] = az * bx - ax * bz;
+        result[offset + 2] = ax * by - ay * bx;
+    }
+
+    /**
+     * Returns the surface distance (length of geodesic) <strong>in radians</strong> between
+     * <code>a</code> and <code>b</code> assuming a <strong>spherical model</strong>: the angle
+     * between both vectors, computed as <code>atan2(|a &times; b|, a &middot; b)</code> which is
+     * accurate for both small and large angles.
+     *
+     * @param ax x component of a
+     * @param ay y component of a
+     * @param az z component of a
+     * @param bx x component of b
+     * @param by y component of b
+     * @param bz z component of b
+     * @return the surface distance in radians between a and b
+     */
+    public static double distance(final double ax, final double ay, final double az, final double bx,
+            final double by, final double bz) {
+        final double cx = ay * bz - az * by;
+        final double cy = az * bx - ax * bz;
+        final double cz = ax * by - ay * bx;
+        return Math.atan2(norm(cx, cy, cz), dot(ax, ay, az, bx, by, bz));
+    }
+
+    /**
+     * Returns the dot product <code>a &middot; b</code>.
+     *
+     * @param ax x component of a
+     * @param ay y component of a
+     * @param az z component of a
+     * @param bx x component of b
+     * @param by y component of b
+     * @param bz z component of b
+     * @return the dot product <code>a &middot; b</code>
+     */
+    public static double dot(final double ax, final double ay, final double az, final double bx, final double by,
+            final double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Writes the intersection of the great circles whose normals are <code>n</code> and
+     * <code>m</code> into the specified array at the specified offset: the normalised cross product
+     * <code>n &times; m</code>, the other intersection being its antipode. Returns
+     * <code>false</code> - leaving the array unchanged - if the two great circles are the same.
+     *
+     * @param nx x component of n
+     * @param ny y component of n
+     * @param nz z component of n
+     * @param mx x component of m
+     * @param my y component of m
+     * @param mz z component of m
+     * @param result the array receiving the components of the intersection
+     * @param offset the index of the x component in the array
+     * @return <code>true</code> if the intersection has been written
+     */
+    public static boolean intersection(final double nx, final double ny, final double nz, final double mx,
+            final double my, final double mz, final double[] result, final int offset) {
+        final double ix = ny * mz - nz * my;
+        final double iy = nz * mx - nx * mz;
+        final double iz = nx * my - ny * mx;
+        final double norm = norm(ix, iy, iz);
+        if (norm == 0.0 || Double.isNaN(norm)) {
+            return false;
+        }
+        final double scale = 1.0 / norm;
+        result[offset] = ix * scale;
+        result[offset + 1] = iy * scale;
+        result[offset + 2] = iz * scale;
+        return true;
+    }
+
+    /**
+     * Returns the norm - i.e. the length - of the vector <code>[x, y, z]</code>.
+     *
+     * @param x x component
+     * @param y y component
+     * @param z z component
+     * @return the norm of the vector
+     */
+    public static double norm(final double x, final double y, final double z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * Returns the scalar triple product <code>a &middot; (b &times; c)</code>: positive if a is on
+     * the left of the great circle going from b to c.
+     *
+     * @param ax x component of a
+     * @param ay y component of a
+     * @param az z component of a
+     * @param bx x component of b
+     * @param by y component of b
+     * @param bz z component of b
+     * @param cx x component of c
+     * @param cy y component of c
+     * @param cz z component of c
+     * @return the scalar triple product <code>a &middot; (b &times; c)</code>
+     */
+    public static double tripleProduct(final double ax, final double ay, final double az, final double bx,
+            final double by, final double bz, final double cx, final double cy, final double cz) {
+        return ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx);
+    }
+
+}
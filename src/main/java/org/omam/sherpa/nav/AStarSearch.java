@@ -0,0 +1,222 @@
+package org.omam.sherpa.nav;
+
+import org.omam.sherpa.delaunay.IndexedTriangulation;
+import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.VectorMath;
+
+/**
+ * A* search of the shortest corridor of faces between two points of a navigation mesh.
+ * <p>
+ * Each face is represented by its centre (normalised mean of its vertices); the cost of moving to
+ * an adjacent face is the great-circle distance between both centres and the heuristic is the
+ * great-circle distance from the centre of the face to the destination. Constrained edges are never
+ * crossed.
+ * <p>
+ * Search state (costs, parents, open and closed sets) is kept in primitive arrays indexed by face
+ * handle which are reused from one search to the next. An instance shall not be used concurrently.
+ */
+final class AStarSearch {
+
+    private final FaceHeap open;
+
+    /** scratch buffer receiving face centres. */
+    private final double[] centre;
+
+    /** face handle to cost from start. */
+    private double[] costs;
+
+    /** face handle to half-edge through which the face has been entered; -1 for the start face. */
+    private int[] entries;
+
+    /** face handle to search during which the face has been reached. */
+    private int[] reached;
+
+    /** face handle to search during which the face has been closed. */
+    private int[] closed;
+
+    /** current search. */
+    private int search;
+
+    /** faces of the last found corridor, from start to destination. */
+    private int[] corridor;
+
+    /** portals of the last found corridor: half-edge leaving corridor[i] towards corridor[i + 1]. */
+    private int[] portals;
+
+    private int corridorLength;
+
+    /** face containing the last located start point: hint of the next point location. */
+    private int locationHint;
+
+    AStarSearch() {
+        open = new FaceHeap();
+        centre = new double[3];
+        costs = new double[0];
+        entries = new int[0];
+        reached = new int[0];
+        closed = new int[0];
+        search = 0;
+        corridor = new int[0];
+        portals = new int[0];
+        corridorLength = 0;
+        locationHint = -1;
+    }
+
+    /**
+     * Returns the handle of the face at the specified index of the last found corridor.
+     * 
+     * @param index the index
+     * @return the handle of the face at the specified index of the last found corridor
+     */
+    final int corridor(final int index) {
+        return corridor[index];
+    }
+
+    /**
+     * Returns the number of faces of the last found corridor.
+     * 
+     * @return the number of faces of the last found corridor
+     */
+    final int corridorLength() {
+        return corridorLength;
+    }
+
+    /**
+     * Returns the handle of the face from which the next point location shall start: the face
+     * containing the last located start point, or <code>-1</code> if none.
+     * 
+     * @return the handle of the face from which the next point location shall start
+     */
+    final int locationHint() {
+        return locationHint;
+    }
+
+    /**
+     * Sets the handle of the face from which the next point location shall start.
+     * 
+     * @param face the face handle - <code>-1</code> if none
+     */
+    final void locationHint(final int face) {
+        locationHint = face;
+    }
+
+    /**
+     * Returns the half-edge through which the corridor leaves the face at the specified index
+     * towards the next face.
+     * 
+     * @param index the index - strictly less than {@link #corridorLength()} minus one
+     * @return the half-edge through which the corridor leaves the face at the specified index
+     */
+    final int portal(final int index) {
+        return portals[index];
+    }
+
+    /**
+     * Searches the shortest corridor from the start face to the destination face.
+     * 
+     * @param mesh the navigation mesh
+     * @param from the start point
+     * @param fromFace the handle of the face containing the start point
+     * @param to the destination point
+     * @param toFace the handle of the face containing the destination point
+     * @return <code>true</code> if a corridor has been found
+     */
+    final boolean search(final IndexedTriangulation mesh, final PositionVector from, final int fromFace,
+            final PositionVector to, final int toFace) {
+        prepare(mesh.faceSlots());
+        final double tx = to.x();
+        final double ty = to.y();
+        final double tz = to.z();
+
+        centre(mesh, fromFace, centre);
+        costs[fromFace] = VectorMath.distance(from.x(), from.y(), from.z(), centre[0], centre[1], centre[2]);
+        entries[fromFace] = -1;
+        reached[fromFace] = search;
+        open.offer(fromFace, costs[fromFace] + VectorMath.distance(centre[0], centre[1], centre[2], tx, ty, tz));
+
+        while (!open.isEmpty()) {
+            final int face = open.poll();
+            if (face == toFace) {
+                buildCorridor(mesh, face);
+                return true;
+            }
+            closed[face] = search;
+            centre(mesh, face, centre);
+            final double cx = centre[0];
+            final double cy = centre[1];
+            final double cz = centre[2];
+            final int first = 3 * face;
+            for (int he = first; he < first + 3; he++) {
+                final int twin = mesh.opposite(he);
+                if (twin == -1 || mesh.isConstrained(he)) {
+                    continue;
+                }
+                final int adjacent = mesh.face(twin);
+                if (closed[adjacent] == search) {
+                    continue;
+                }
+                centre(mesh, adjacent, centre);
+                final double cost = costs[face] + VectorMath.distance(cx, cy, cz, centre[0], centre[1], centre[2]);
+                if (reached[adjacent] != search || cost < costs[adjacent]) {
+                    reached[adjacent] = search;
+                    costs[adjacent] = cost;
+                    entries[adjacent] = twin;
+                    open.offer(adjacent, cost + VectorMath.distance(centre[0], centre[1], centre[2], tx, ty, tz));
+                }
+            }
+        }
+        corridorLength = 0;
+        return false;
+    }
+
+    private void buildCorridor(final IndexedTriangulation mesh, final int destination) {
+        int length = 1;
+        for (int face = destination; entries[face] != -1; face = mesh.face(mesh.opposite(entries[face]))) {
+            length++;
+        }
+        if (corridor.length < length) {
+            corridor = new int[length];
+            portals = new int[length];
+        }
+        int index = length - 1;
+        int face = destination;
+        corridor[index] = face;
+        while (entries[face] != -1) {
+            final int exit = mesh.opposite(entries[face]);
+            face = mesh.face(exit);
+            index--;
+            corridor[index] = face;
+            portals[index] = exit;
+        }
+        corridorLength = length;
+    }
+
+    private void prepare(final int faceSlots) {
+        open.clear(faceSlots);
+        if (costs.length < faceSlots) {
+            costs = new double[faceSlots];
+            entries = new int[faceSlots];
+            reached = new int[faceSlots];
+            closed = new int[faceSlots];
+            search = 0;
+        }
+        search++;
+    }
+
+    /**
+     * Computes the centre of the specified face: the normalised mean of its vertices.
+     */
+    static void centre(final IndexedTriangulation mesh, final int face, final double[] result) {
+        final int v0 = mesh.origin(3 * face);
+        final int v1 = mesh.origin(3 * face + 1);
+        final int v2 = mesh.origin(3 * face + 2);
+        final double x = mesh.x(v0) + mesh.x(v1) + mesh.x(v2);
+        final double y = mesh.y(v0) + mesh.y(v1) + mesh.y(v2);
+        final double z = mesh.z(v0) + mesh.z(v1) + mesh.z(v2);
+        final double norm = Math.sqrt(x * x + y * y + z * z);
+        result[0] = x / norm;
+        result[1] = y / norm;
+        result[2] = z / norm;
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.omam.sherpa.nav;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of face handles keyed by a <code>double</code> priority, supporting decrease of
+ * the priority of a face already in the heap. Storage is made of primitive arrays indexed by face
+ * handle which are only reallocated when the number of faces grows.
+ */
+final class FaceHeap {
+
+    /** heap of face handles. */
+    private int[] heap;
+
+    /** face handle to priority. */
+    private double[] priorities;
+
+    /** face handle to index in heap; -1 if not in the heap. */
+    private int[] positions;
+
+    private int size;
+
+    FaceHeap() {
+        heap = new int[0];
+        priorities = new double[0];
+        positions = new int[0];
+        size = 0;
+    }
+
+    /**
+     * Removes all faces from this heap and ensures that faces handles up to the specified number
+     * (exclusive) can be added.
+     * 
+     * @param faceSlots number of face handles
+     */
+    final void clear(final int faceSlots) {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+        if (positions.length < faceSlots) {
+            heap = new int[faceSlots];
+            priorities = new double[faceSlots];
+            positions = new int[faceSlots];
+            Arrays.fill(positions, -1);
+        }
+    }
+
+    final boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds the specified face with the specified priority or decreases the priority of the
+     * specified face if already in this heap with a greater priority.
+     * 
+     * @param face the face handle
+     * @param priority the priority
+     */
+    final void offer(final int face, final double priority) {
+        int index = positions[face];
+        if (index == -1) {
+            index = size;
+            size++;
+            heap[index] = face;
+            positions[face] = index;
+            priorities[face] = priority;
+            siftUp(index);
+        } else if (priority < priorities[face]) {
+            priorities[face] = priority;
+            siftUp(index);
+        }
+    }
+
+    /**
+     * Removes and returns the face with the lowest priority.
+     * 
+     * @return the face with the lowest priority
+     */
+    final int poll() {
+        final int result = heap[0];
+        positions[result] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftDown(final int from) {
+        int index = from;
+        final int face = heap[index];
+        final double priority = priorities[face];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && priorities[heap[child + 1]] < priorities[heap[child]]) {
+                child++;
+            }
+            if (priorities[heap[child]] >= priority) {
+                break;
+            }
+            heap[index] = heap[child];
+            positions[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = face;
+        positions[face] = index;
+    }
+
+    private void siftUp(final int from) {
+        int index = from;
+        final int face = heap[index];
+        final double priority = priorities[face];
+        while (index > 0) {
+            final int parent = (index - 1) / 2;
+            if (priorities[heap[parent]] <= priority) {
+                break;
+            }
+            heap[index] = heap[parent];
+            positions[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = face;
+        positions[face] = index;
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.omam.sherpa.nav;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.omam.sherpa.delaunay.IndexedTriangulation;
+import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Predicates;
+
+/**
+ * String pulling of a corridor of faces found by an {@link AStarSearch} - the <i>"simple stupid
+ * funnel algorithm"</i> adapted to the sphere.
+ * <p>
+ * The corridor is described by its portals: the edges shared by consecutive faces. The funnel is
+ * made of an apex and of the great arcs going from the apex to the left and right end points of the
+ * last visited portals. Portals are visited in order, narrowing the funnel; when one side of the
+ * funnel crosses the other side, the end point of the latter becomes a point of the route and the
+ * new apex. The result is the shortest polyline of great arcs within the corridor and is computed
+ * in linear time of the corridor length.
+ * <p>
+ * On the sphere, the orientation of three points is the sign of their scalar triple product, see
+ * {@link Predicates#orient(PositionVector, PositionVector, PositionVector)}.
+ */
+final class Funnel {
+
+    /**
+     * Constructor.
+     */
+    private Funnel() {
+        // static methods only.
+    }
+
+    /**
+     * Returns the shortest route from the specified start point to the specified destination point
+     * within the last corridor found by the specified search.
+     * 
+     * @param mesh the navigation mesh
+     * @param search the search - which has found a corridor
+     * @param from the start point
+     * @param to the destination point
+     * @return the points of the route, including both start and destination points
+     */
+    static List<PositionVector> pull(final IndexedTriangulation mesh, final AStarSearch search,
+            final PositionVector from, final PositionVector to) {
+        final List<PositionVector> result = new ArrayList<PositionVector>();
+        result.add(from);
+        // portal 0 is the start point, portal n the destination point.
+        final int n = search.corridorLength();
+        PositionVector apex = from;
+        PositionVector left = from;
+        PositionVector right = from;
+        int apexIndex = 0;
+        int leftIndex = 0;
+        int rightIndex = 0;
+        for (int i = 1; i <= n; i++) {
+            final PositionVector pLeft = i == n ? to : mesh.vertex(mesh.origin(mesh.next(search.portal(i - 1))));
+            final PositionVector pRight = i == n ? to : mesh.vertex(mesh.origin(search.portal(i - 1)));
+
+            // narrow the right side of the funnel
+            if (orient(apex, right, pRight) >= 0) {
+                if (apex.equals(right) || orient(apex, left, pRight) < 0) {
+                    right = pRight;
+                    rightIndex = i;
+                } else {
+                    // right side crosses over left side: left becomes the new apex
+                    result.add(left);
+                    apex = left;
+                    apexIndex = leftIndex;
+                    right = apex;
+                    rightIndex = apexIndex;
+                    i = apexIndex;
+                    continue;
+                }
+            }
+
+            // narrow the left side of the funnel
+            if (orient(apex, left, pLeft) <= 0) {
+                if (apex.equals(left) || orient(apex, right, pLeft) > 0) {
+                    left = pLeft;
+                    leftIndex = i;
+                } else {
+                    // left side crosses over right side: right becomes the new apex
+                    result.add(right);
+                    apex = right;
+                    apexIndex = rightIndex;
+                    left = apex;
+                    leftIndex = apexIndex;
+                    i = apexIndex;
+                    continue;
+                }
+            }
+        }
+        if (!result.get(result.size() - 1).equals(to)) {
+            result.add(to);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sign of the orientation of c w.r.t. the great arc from a to b: positive if c is on
+     * the left.
+     */
+    private static int orient(final PositionVector a, final PositionVector b, final PositionVector c) {
+        return Predicates.orient(a, b, c);
+    }
+
+}
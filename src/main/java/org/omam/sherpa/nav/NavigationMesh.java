@@ -1,10 +1,20 @@
 package org.omam.sherpa.nav;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.omam.sherpa.delaunay.HalfEdge;
+import org.omam.sherpa.delaunay.IndexedTriangulation;
+import org.omam.sherpa.delaunay.TriangulationDelta;
 import org.omam.sherpa.delaunay.TriangulationException;
+import org.omam.sherpa.delaunay.TriangulationListener;
 import org.omam.sherpa.delaunay.Triangulator;
 import org.omam.sherpa.geometry.GeometryException;
 import org.omam.sherpa.geometry.Icosahedron;
@@ -13,24 +23,305 @@ import org.omam.sherpa.geometry.Triangle;
 
 public final class NavigationMesh {
 
+    /** number of available processors. */
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    /** default executor of batch route queries: one daemon thread per processor. */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(PROCESSORS, new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, "sherpa-route");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
     private final Triangulator triangulator;
 
+    /** last published snapshot. */
+    private volatile NavigationMeshSnapshot snapshot;
+
+    private final List<TriangulationListener> listeners;
+
+    /** changes of the triangulation not yet published nor notified to listeners. */
+    private final List<TriangulationDelta> deltas;
+
     public NavigationMesh(final int tessellationLevel) throws GeometryException, TriangulationException {
+        this(tessellationLevel, Tessellation.CENTROID);
+    }
+
+    public NavigationMesh(final int tessellationLevel, final Tessellation tessellation) throws GeometryException,
+            TriangulationException {
         final List<Triangle> icosahedron = Icosahedron.build();
         triangulator = new Triangulator(icosahedron);
-        triangulator.tessellate(tessellationLevel);
+        listeners = new ArrayList<TriangulationListener>();
+        deltas = new ArrayList<TriangulationDelta>();
+        if (tessellation == Tessellation.SUBDIVISION) {
+            triangulator.subdivide(tessellationLevel);
+        } else {
+            triangulator.tessellate(tessellationLevel);
+        }
+        snapshot = new NavigationMeshSnapshot(triangulator.index());
+        triangulator.addListener(new TriangulationListener() {
+
+            @Override
+            public void triangulationChanged(final TriangulationDelta delta) {
+                deltas.add(delta);
+            }
+        });
+    }
+
+    /**
+     * Adds the specified listener: once each modification of this navigation mesh has completed
+     * and the new {@link #snapshot() snapshot} has been published, the listener is notified of the
+     * faces added and removed and of the edges constrained and no longer constrained by the
+     * modification.
+     * 
+     * @param l the listener
+     */
+    public final synchronized void addListener(final TriangulationListener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Adds the specified obstacle to this navigation mesh under a generated identifier and
+     * publishes a new {@link #snapshot() snapshot}. Concurrent readers keep on using the previous
+     * snapshot until this method returns.
+     * 
+     * @param vertices the vertices of the obstacle
+     * @return the identifier of the obstacle
+     * @throws GeometryException in case of geometry error
+     * @throws TriangulationException in case of triangulation error
+     */
+    public final String addObstacle(final PositionVector[] vertices) throws GeometryException,
+            TriangulationException {
+        final String id = UUID.randomUUID().toString();
+        addObstacle(id, vertices);
+        return id;
+    }
+
+    /**
+     * Adds the specified obstacle to this navigation mesh and publishes a new
+     * {@link #snapshot() snapshot}. Concurrent readers keep on using the previous snapshot until
+     * this method returns.
+     * 
+     * @param id the unique identifier of the obstacle
+     * @param vertices the vertices of the obstacle
+     * @throws GeometryException in case of geometry error
+     * @throws TriangulationException in case of triangulation error or if an obstacle with the
+     *             same identifier already exists
+     */
+    public final synchronized void addObstacle(final String id, final PositionVector[] vertices)
+            throws GeometryException, TriangulationException {
+        try {
+            triangulator.addConstraint(id, vertices);
+        } finally {
+            publish();
+        }
+    }
+
+    /**
+     * Adds the specified obstacles to this navigation mesh under generated identifiers and
+     * publishes a single new {@link #snapshot() snapshot} once done. The vertices of all obstacles
+     * are bulk inserted before the obstacle edges - see {@link Triangulator#addConstraints(Map)}.
+     * 
+     * @param obstacles the vertices of each obstacle
+     * @return the identifiers of the obstacles, in iteration order of the specified collection
+     * @throws GeometryException in case of geometry error
+     * @throws TriangulationException in case of triangulation error
+     */
+    public final synchronized List<String> addObstacles(final Collection<PositionVector[]> obstacles)
+            throws GeometryException, TriangulationException {
+        final Map<String, PositionVector[]> constraints = constraints(obstacles);
+        try {
+            triangulator.addConstraints(constraints);
+        } finally {
+            publish();
+        }
+        return new ArrayList<String>(constraints.keySet());
+    }
+
+    /**
+     * Adds the specified obstacles to this navigation mesh, planning the insertion of the
+     * obstacle edges concurrently on the specified executor - see {@link #addObstacles(Collection)}
+     * and {@link Triangulator#addConstraints(Map, ExecutorService, int)}.
+     * 
+     * @param obstacles the vertices of each obstacle
+     * @param executor the executor used to plan the insertion of the obstacle edges
+     * @param parallelism the number of concurrent planning tasks
+     * @return the identifiers of the obstacles, in iteration order of the specified collection
+     * @throws GeometryException in case of geometry error
+     * @throws TriangulationException in case of triangulation error
+     * @throws InterruptedException if the current thread is interrupted while waiting for the
+     *             planning tasks
+     */
+    public final synchronized List<String> addObstacles(final Collection<PositionVector[]> obstacles,
+            final ExecutorService executor, final int parallelism) throws GeometryException, TriangulationException,
+            InterruptedException {
+        final Map<String, PositionVector[]> constraints = constraints(obstacles);
+        try {
+            triangulator.addConstraints(constraints, executor, parallelism);
+        } finally {
+            publish();
+        }
+        return new ArrayList<String>(constraints.keySet());
+    }
+
+    /**
+     * Removes the obstacle identified by the specified identifier from this navigation mesh and
+     * publishes a new {@link #snapshot() snapshot}. Only the faces in the neighbourhood of the
+     * obstacle are updated.
+     * 
+     * @param id the identifier of the obstacle
+     * @return <code>true</code> if the obstacle has been removed, <code>false</code> if no obstacle
+     *         has the specified identifier
+     * @throws GeometryException in case of geometry error
+     */
+    public final synchronized boolean removeObstacle(final String id) throws GeometryException {
+        boolean removed = false;
+        try {
+            removed = triangulator.removeConstraint(id);
+        } finally {
+            publish();
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the obstacle identified by the specified identifier to the specified vertices and
+     * publishes a single new {@link #snapshot() snapshot} once done. Only the faces in the
+     * neighbourhood of the old and new obstacle are updated. If the obstacle cannot be moved, it is
+     * left unchanged.
+     * 
+     * @param id the identifier of the obstacle
+     * @param newVertices the new vertices of the obstacle
+     * @return <code>true</code> if the obstacle has been moved, <code>false</code> if no obstacle
+     *         has the specified identifier
+     * @throws GeometryException in case of geometry error
+     * @throws TriangulationException in case of triangulation error
+     */
+    public final synchronized boolean moveObstacle(final String id, final PositionVector[] newVertices)
+            throws GeometryException, TriangulationException {
+        boolean moved = false;
+        try {
+            moved = triangulator.moveConstraint(id, newVertices);
+        } finally {
+            publish();
+        }
+        return moved;
+    }
+
+    /**
+     * Returns a copy of the half-edges of this navigation mesh, taken while no modification is in
+     * progress.
+     * 
+     * @return a copy of the half-edges of this navigation mesh
+     */
+    public final synchronized Collection<HalfEdge> edges() {
+        return new ArrayList<HalfEdge>(triangulator.edges());
+    }
+
+    /**
+     * Returns a copy of the faces of this navigation mesh, taken while no modification is in
+     * progress.
+     * 
+     * @return a copy of the faces of this navigation mesh
+     */
+    public final synchronized Collection<Triangle> faces() {
+        return new ArrayList<Triangle>(triangulator.faces());
+    }
+
+    /**
+     * Returns the shortest route from the specified start point to the specified destination point
+     * which does not cross any obstacle. The route is searched using the A* algorithm on the graph
+     * of adjacent faces of this navigation mesh; the resulting corridor of faces is then
+     * straightened by {@link Funnel string pulling} so that the route is made of great arcs joining
+     * the start point, the obstacle vertices around which the route turns and the destination
+     * point.
+     * 
+     * @param from the start point
+     * @param to the destination point
+     * @return the points of the route - the list is empty if no route exists
+     */
+    public final List<PositionVector> route(final PositionVector from, final PositionVector to) {
+        return snapshot.route(from, to);
+    }
+
+    /**
+     * Returns the routes for each of the specified requests - as {@link #route(PositionVector,
+     * PositionVector)} would do - using the default pool of one worker thread per available
+     * processor.
+     * 
+     * @param requests the route requests
+     * @return the routes, in the same order as the requests
+     * @throws InterruptedException if the current thread is interrupted while waiting for the
+     *             routes
+     */
+    public final List<List<PositionVector>> routes(final List<RouteRequest> requests) throws InterruptedException {
+        return routes(requests, WORKERS, PROCESSORS);
+    }
+
+    /**
+     * Returns the routes for each of the specified requests - as {@link #route(PositionVector,
+     * PositionVector)} would do - using the specified executor.
+     * <p>
+     * Requests are split into the specified number of contiguous batches, each batch being
+     * submitted as a single task to the executor. All tasks query the same
+     * {@link #snapshot() snapshot} of this navigation mesh and every worker thread reuses its own
+     * search scratch buffers from one batch to the next.
+     * 
+     * @param requests the route requests
+     * @param executor the executor running the batches
+     * @param parallelism the number of batches
+     * @return the routes, in the same order as the requests
+     * @throws InterruptedException if the current thread is interrupted while waiting for the
+     *             routes
+     */
+    public final List<List<PositionVector>> routes(final List<RouteRequest> requests,
+            final ExecutorService executor, final int parallelism) throws InterruptedException {
+        return snapshot.routes(requests, executor, parallelism);
     }
 
-    public final void addObstacle(final PositionVector[] vertices) throws GeometryException, TriangulationException {
-        triangulator.addConstraint("", vertices);
+    /**
+     * Returns the last published snapshot of this navigation mesh. A new snapshot is published
+     * after each modification of this navigation mesh; a snapshot can be queried concurrently
+     * without ever blocking on - or being affected by - modifications of this navigation mesh.
+     * 
+     * @return the last published snapshot of this navigation mesh
+     */
+    public final NavigationMeshSnapshot snapshot() {
+        return snapshot;
     }
 
-    public final Collection<HalfEdge> edges() {
-        return triangulator.edges();
+    /**
+     * Returns the specified obstacles by generated identifier.
+     */
+    private static Map<String, PositionVector[]> constraints(final Collection<PositionVector[]> obstacles) {
+        final Map<String, PositionVector[]> result = new LinkedHashMap<String, PositionVector[]>();
+        for (final PositionVector[] vertices : obstacles) {
+            result.put(UUID.randomUUID().toString(), vertices);
+        }
+        return result;
     }
 
-    public final Collection<Triangle> faces() {
-        return triangulator.faces();
+    /**
+     * Publishes a new snapshot if the triangulation has changed and notifies the listeners of the
+     * changes. The new snapshot is a copy of the last published one updated with the changes only,
+     * see {@link Triangulator#index(IndexedTriangulation, List)}: readers keep on using the last
+     * published snapshot meanwhile.
+     */
+    private void publish() {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        snapshot = new NavigationMeshSnapshot(triangulator.index(snapshot.triangulation(), deltas));
+        for (final TriangulationDelta delta : deltas) {
+            for (final TriangulationListener l : listeners) {
+                l.triangulationChanged(delta);
+            }
+        }
+        deltas.clear();
     }
 
 }
@@ -0,0 +1,142 @@
+package org.omam.sherpa.nav;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.omam.sherpa.delaunay.IndexedTriangulation;
+import org.omam.sherpa.geometry.PositionVector;
+
+/**
+ * An immutable view of a {@link NavigationMesh} at a given point in time.
+ * <p>
+ * The faces, their adjacency and the constrained (obstacle) edges are stored in a
+ * {@link IndexedTriangulation#freeze() frozen} {@link IndexedTriangulation}. A snapshot is never
+ * modified once created: route queries can therefore be run concurrently by any number of threads
+ * without locking, while obstacles are being added to the navigation mesh - which publishes a new
+ * snapshot once done.
+ */
+public final class NavigationMeshSnapshot {
+
+    /** search scratch buffers of each thread querying routes. */
+    private static final ThreadLocal<AStarSearch> SEARCHES = new ThreadLocal<AStarSearch>() {
+
+        @Override
+        protected AStarSearch initialValue() {
+            return new AStarSearch();
+        }
+    };
+
+    private final IndexedTriangulation mesh;
+
+    /**
+     * Constructor.
+     * 
+     * @param mesh the indexed triangulation - frozen by this constructor
+     */
+    NavigationMeshSnapshot(final IndexedTriangulation mesh) {
+        mesh.freeze();
+        this.mesh = mesh;
+    }
+
+    /**
+     * Returns the shortest route from the specified start point to the specified destination point
+     * which does not cross any obstacle of this snapshot.
+     * 
+     * @param from the start point
+     * @param to the destination point
+     * @return the points of the route - the list is empty if no route exists
+     * @see NavigationMesh#route(PositionVector, PositionVector)
+     */
+    public final List<PositionVector> route(final PositionVector from, final PositionVector to) {
+        return route(SEARCHES.get(), from, to);
+    }
+
+    /**
+     * Returns the routes for each of the specified requests using the specified executor.
+     * <p>
+     * Requests are split into the specified number of contiguous batches, each batch being
+     * submitted as a single task to the executor. Every worker thread reuses its own search scratch
+     * buffers from one batch to the next.
+     * 
+     * @param requests the route requests
+     * @param executor the executor running the batches
+     * @param parallelism the number of batches
+     * @return the routes, in the same order as the requests
+     * @throws InterruptedException if the current thread is interrupted while waiting for the
+     *             routes
+     */
+    public final List<List<PositionVector>> routes(final List<RouteRequest> requests,
+            final ExecutorService executor, final int parallelism) throws InterruptedException {
+        final int size = requests.size();
+        // each batch only sets its own indices: the list is never structurally modified
+        final List<List<PositionVector>> result = new ArrayList<List<PositionVector>>(
+                Collections.<List<PositionVector>> nCopies(size, null));
+        final int batches = Math.max(1, Math.min(parallelism, size));
+        final List<Future<?>> futures = new ArrayList<Future<?>>(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            final int start = (int) ((long) size * batch / batches);
+            final int end = (int) ((long) size * (batch + 1) / batches);
+            futures.add(executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() {
+                    final AStarSearch search = SEARCHES.get();
+                    for (int index = start; index < end; index++) {
+                        final RouteRequest request = requests.get(index);
+                        result.set(index, route(search, request.from(), request.to()));
+                    }
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            for (final Future<?> future : futures) {
+                future.cancel(true);
+            }
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the frozen indexed triangulation of this snapshot: faces, adjacency and constrained
+     * edges.
+     * 
+     * @return the frozen indexed triangulation of this snapshot
+     */
+    public final IndexedTriangulation triangulation() {
+        return mesh;
+    }
+
+    /**
+     * Returns the shortest route from the specified start point to the specified destination point
+     * using the specified search.
+     */
+    private List<PositionVector> route(final AStarSearch search, final PositionVector from, final PositionVector to) {
+        // consecutive queries of a thread are usually close: start from the last located face
+        final int fromFace = mesh.locate(from, search.locationHint());
+        final int toFace = mesh.locate(to, fromFace);
+        search.locationHint(fromFace);
+        final List<PositionVector> result;
+        if (fromFace != -1 && toFace != -1 && search.search(mesh, from, fromFace, to, toFace)) {
+            result = Funnel.pull(mesh, search, from, to);
+        } else {
+            result = new ArrayList<PositionVector>();
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.omam.sherpa.nav;
+
+import org.omam.sherpa.geometry.PositionVector;
+
+/**
+ * A request for a route between two points of a {@link NavigationMesh}.
+ */
+public final class RouteRequest {
+
+    private final PositionVector from;
+
+    private final PositionVector to;
+
+    /**
+     * Constructor.
+     * 
+     * @param from the start point
+     * @param to the destination point
+     */
+    public RouteRequest(final PositionVector from, final PositionVector to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the start point.
+     * 
+     * @return the start point
+     */
+    public final PositionVector from() {
+        return from;
+    }
+
+    /**
+     * Returns the destination point.
+     * 
+     * @return the destination point
+     */
+    public final PositionVector to() {
+        return to;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.omam.sherpa.nav;
+
+/**
+ * Strategies used to tessellate the {@link org.omam.sherpa.geometry.Icosahedron icosahedron}
+ * covering the earth when constructing a {@link NavigationMesh}.
+ */
+public enum Tessellation {
+
+    /**
+     * the centroid of each face is inserted as a new point of the Delaunay triangulation at each
+     * level: <code>20 * 3^level</code> faces.
+     */
+    CENTROID,
+
+    /**
+     * each face is directly subdivided into four faces by joining the midpoints of its edges at
+     * each level: <code>20 * 4^level</code> faces. Much faster than {@link #CENTROID}.
+     */
+    SUBDIVISION;
+
+}
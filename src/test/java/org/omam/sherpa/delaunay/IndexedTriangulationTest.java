@@ -0,0 +1,151 @@
+package org.omam.sherpa.delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.omam.sherpa.geometry.EarthCoordinates;
+import org.omam.sherpa.geometry.GeometryException;
+import org.omam.sherpa.geometry.Icosahedron;
+import org.omam.sherpa.geometry.PositionVector;
+import org.omam.sherpa.geometry.Triangle;
+
+public final class IndexedTriangulationTest {
+
+    @Test
+    public final void constrainedEdges() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.MELBOURNE });
+        final IndexedTriangulation indexed = triangulator.index();
+        final int malmoe = indexed.vertex(EarthCoordinates.MALMOE);
+        final int melbourne = indexed.vertex(EarthCoordinates.MELBOURNE);
+        final int he = indexed.edge(malmoe, melbourne);
+        assertTrue(indexed.isConstrained(he));
+        assertTrue(indexed.isConstrained(indexed.opposite(he)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public final void frozen() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        final IndexedTriangulation indexed = triangulator.index();
+        indexed.freeze();
+        assertTrue(indexed.isFrozen());
+        indexed.removeFace(0);
+    }
+
+    @Test
+    public final void index() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(2);
+        final IndexedTriangulation indexed = triangulator.index();
+        assertEquals(180, indexed.faceCount());
+        assertEquals(92, indexed.vertexCount());
+        for (int f = 0; f < indexed.faceSlots(); f++) {
+            for (int he = 3 * f; he < 3 * f + 3; he++) {
+                final int opposite = indexed.opposite(he);
+                assertEquals(he, indexed.opposite(opposite));
+                assertEquals(indexed.origin(he), indexed.origin(indexed.next(opposite)));
+                assertEquals(he, indexed.next(indexed.previous(he)));
+                assertFalse(indexed.isConstrained(he));
+            }
+        }
+    }
+
+    @Test
+    public final void indexUpdatedWithChanges() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(3);
+        final IndexedTriangulation previous = triangulator.index();
+        previous.freeze();
+        final List<TriangulationDelta> changes = new ArrayList<TriangulationDelta>();
+        triangulator.addListener(new TriangulationListener() {
+
+            @Override
+            public void triangulationChanged(final TriangulationDelta delta) {
+                changes.add(delta);
+            }
+        });
+        triangulator.addConstraint("sweden", new PositionVector[] { EarthCoordinates.STOCKHOLM,
+                EarthCoordinates.OREBRO, EarthCoordinates.JONKOPING, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("south", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        triangulator.moveConstraint("south", new PositionVector[] { EarthCoordinates.LUND, EarthCoordinates.KALMAR });
+        triangulator.removeConstraint("sweden");
+
+        final IndexedTriangulation updated = triangulator.index(previous, changes);
+        final IndexedTriangulation expected = triangulator.index();
+        assertEquals(faces(expected), faces(updated));
+        assertEquals(constrainedEdges(expected), constrainedEdges(updated));
+        assertEquals(1, constrainedEdges(updated).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void removeFaceTwice() throws GeometryException {
+        final IndexedTriangulation indexed = new IndexedTriangulation();
+        final int face = indexed.addFace(new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR,
+                EarthCoordinates.GOTEBORG));
+        indexed.removeFace(face);
+        indexed.removeFace(face);
+    }
+
+    @Test
+    public final void removeFaceRecyclesSlot() throws GeometryException {
+        final IndexedTriangulation indexed = new IndexedTriangulation();
+        final int f1 = indexed.addFace(new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR,
+                EarthCoordinates.GOTEBORG));
+        final int f2 = indexed.addFace(new Triangle(EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM,
+                EarthCoordinates.GOTEBORG));
+        final int kalmar = indexed.vertex(EarthCoordinates.KALMAR);
+        final int goteborg = indexed.vertex(EarthCoordinates.GOTEBORG);
+        final int link = indexed.edge(kalmar, goteborg);
+        assertEquals(f2, indexed.face(indexed.opposite(link)));
+
+        indexed.removeFace(f2);
+        assertEquals(1, indexed.faceCount());
+        assertFalse(indexed.isFace(f2));
+        assertEquals(-1, indexed.opposite(link));
+        assertEquals(-1, indexed.edge(goteborg, kalmar));
+
+        final int f3 = indexed.addFace(new Triangle(EarthCoordinates.KALMAR, EarthCoordinates.NORRKOPING,
+                EarthCoordinates.GOTEBORG));
+        assertEquals(f2, f3);
+        assertTrue(indexed.isFace(f1));
+        assertEquals(2, indexed.faceCount());
+        assertEquals(f3, indexed.face(indexed.opposite(link)));
+    }
+
+    private static Set<Set<PositionVector>> faces(final IndexedTriangulation indexed) {
+        final Set<Set<PositionVector>> result = new HashSet<Set<PositionVector>>();
+        for (int f = 0; f < indexed.faceSlots(); f++) {
+            if (indexed.isFace(f)) {
+                final Set<PositionVector> face = new HashSet<PositionVector>();
+                for (int he = 3 * f; he < 3 * f + 3; he++) {
+                    face.add(indexed.vertex(indexed.origin(he)));
+                }
+                result.add(face);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Set<PositionVector>> constrainedEdges(final IndexedTriangulation indexed) {
+        final Set<Set<PositionVector>> result = new HashSet<Set<PositionVector>>();
+        for (int f = 0; f < indexed.faceSlots(); f++) {
+            for (int he = 3 * f; indexed.isFace(f) && he < 3 * f + 3; he++) {
+                if (indexed.isConstrained(he)) {
+                    final Set<PositionVector> edge = new HashSet<PositionVector>();
+                    edge.add(indexed.vertex(indexed.origin(he)));
+                    edge.add(indexed.vertex(indexed.origin(indexed.next(he))));
+                    result.add(edge);
+                }
+            }
+        }
+        return result;
+    }
+
+}
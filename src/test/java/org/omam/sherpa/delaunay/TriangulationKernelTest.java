@@ -40,6 +40,21 @@ public final class TriangulationKernelTest {
         assertTrue(kernel.containsVertex(EarthCoordinates.STOCKHOLM));
     }
 
+    @Test
+    public final void containsVertexAfterSwap() throws GeometryException {
+        final Triangle f1 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
+        final Triangle f2 = new Triangle(EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        final List<Triangle> faces = new ArrayList<Triangle>();
+        faces.add(f1);
+        faces.add(f2);
+        final TriangulationKernel kernel = new TriangulationKernel(faces);
+        kernel.swapEdge(f1, f2);
+        assertTrue(kernel.containsVertex(EarthCoordinates.MALMOE));
+        assertTrue(kernel.containsVertex(EarthCoordinates.KALMAR));
+        assertTrue(kernel.containsVertex(EarthCoordinates.STOCKHOLM));
+        assertTrue(kernel.containsVertex(EarthCoordinates.GOTEBORG));
+    }
+
     @Test
     public final void divideInFour() throws GeometryException {
         final Triangle f1 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
@@ -136,6 +151,21 @@ public final class TriangulationKernelTest {
         assertTrue(actual.vertex().equals(EarthCoordinates.MALMOE) || actual.vertex().equals(EarthCoordinates.GOTEBORG));
     }
 
+    @Test
+    public final void sharedEdge() throws GeometryException {
+        final Triangle f1 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
+        final Triangle f2 = new Triangle(EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        final List<Triangle> faces = new ArrayList<Triangle>();
+        faces.add(f1);
+        faces.add(f2);
+        final TriangulationKernel kernel = new TriangulationKernel(faces);
+        final HalfEdge actual = kernel.edge(new GreatArc(EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG)
+                .midPoint());
+        assertTrue(actual.vertex().equals(EarthCoordinates.KALMAR) || actual.vertex().equals(EarthCoordinates.GOTEBORG));
+        assertTrue(actual.opposite().vertex().equals(EarthCoordinates.KALMAR)
+                || actual.opposite().vertex().equals(EarthCoordinates.GOTEBORG));
+    }
+
     @Test
     public final void face() throws GeometryException {
         final Triangle f = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
@@ -147,6 +177,21 @@ public final class TriangulationKernelTest {
 
     }
 
+    @Test
+    public final void faceFromHint() throws GeometryException {
+        final Triangle f1 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
+        final Triangle f2 = new Triangle(EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        final Triangle f3 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.ROSKILDE);
+        final List<Triangle> faces = new ArrayList<Triangle>();
+        faces.add(f1);
+        faces.add(f2);
+        faces.add(f3);
+        final TriangulationKernel kernel = new TriangulationKernel(faces);
+        assertEquals(f2, kernel.face(EarthCoordinates.NORRKOPING, f3));
+        assertEquals(f3, kernel.face(f3.centroid(), f2));
+        assertEquals(f1, kernel.face(EarthCoordinates.LUND, f2));
+    }
+
     @Test
     public final void intersectingFace() throws GeometryException {
         final Triangle f1 = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
@@ -288,7 +333,7 @@ public final class TriangulationKernelTest {
         faces.add(f1);
         faces.add(f2);
         final TriangulationKernel kernel = new TriangulationKernel(faces);
-        kernel.edges().add(new HalfEdge(null, null));
+        kernel.edges().add(new HalfEdge(null, -1, null));
     }
 
     @Test(expected = UnsupportedOperationException.class)
@@ -1,13 +1,28 @@
 package org.omam.sherpa.delaunay;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
+import org.omam.sherpa.geometry.CoordinatesConverter;
 import org.omam.sherpa.geometry.EarthCoordinates;
 import org.omam.sherpa.geometry.GeometryException;
+import org.omam.sherpa.geometry.GreatArc;
 import org.omam.sherpa.geometry.Icosahedron;
+import org.omam.sherpa.geometry.PositionVector;
 import org.omam.sherpa.geometry.Triangle;
 
 public final class TriangulatorTest {
@@ -20,6 +35,312 @@ public final class TriangulatorTest {
         assertEquals(3, faces.size());
     }
 
+    @Test
+    public final void addPoints() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        final Random random = new Random(3L);
+        final List<PositionVector> points = new ArrayList<PositionVector>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(CoordinatesConverter.toCartesian(random.nextDouble() * 180.0 - 90.0,
+                    random.nextDouble() * 360.0 - 180.0));
+        }
+        triangulator.addPoints(points);
+        // euler: each point inserted in a sphere triangulation adds 2 faces
+        assertEquals(20 + 2 * points.size(), triangulator.faces().size());
+    }
+
+    @Test(expected = DuplicateConstraintException.class)
+    public final void addConstraintDuplicateId() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("c", new PositionVector[] { EarthCoordinates.LUND, EarthCoordinates.YSTAD });
+    }
+
+    @Test
+    public final void addConstraints() throws GeometryException, TriangulationException {
+        final PositionVector[] sweden = { EarthCoordinates.STOCKHOLM, EarthCoordinates.OREBRO,
+                EarthCoordinates.JONKOPING, EarthCoordinates.KALMAR };
+        final PositionVector[] south = { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR };
+        final Triangulator one = new Triangulator(Icosahedron.build());
+        one.tessellate(3);
+        one.addConstraint("sweden", sweden);
+        one.addConstraint("south", south);
+
+        final Triangulator bulk = new Triangulator(Icosahedron.build());
+        bulk.tessellate(3);
+        final Map<String, PositionVector[]> constraints = new LinkedHashMap<String, PositionVector[]>();
+        constraints.put("sweden", sweden);
+        constraints.put("south", south);
+        bulk.addConstraints(constraints);
+
+        assertEquals(one.faces().size(), bulk.faces().size());
+        assertEquals(constrainedCount(one), constrainedCount(bulk));
+        assertDelaunay(bulk);
+
+        assertTrue(bulk.removeConstraint("sweden"));
+        assertTrue(bulk.removeConstraint("south"));
+        assertEquals(0, constrainedCount(bulk));
+    }
+
+    @Test
+    public final void addConstraintsConcurrently() throws GeometryException, TriangulationException,
+            InterruptedException {
+        final Random random = new Random(7L);
+        final Map<String, PositionVector[]> constraints = new LinkedHashMap<String, PositionVector[]>();
+        for (int lat = -80; lat < 80; lat += 8) {
+            for (int lon = -176; lon < 176; lon += 8) {
+                final double la = lat + random.nextDouble();
+                final double lo = lon + random.nextDouble();
+                constraints.put(lat + "/" + lon, new PositionVector[] { CoordinatesConverter.toCartesian(la, lo),
+                        CoordinatesConverter.toCartesian(la + 3.1, lo + 1.3),
+                        CoordinatesConverter.toCartesian(la + 1.7, lo + 4.9),
+                        CoordinatesConverter.toCartesian(la - 1.3, lo + 3.7) });
+            }
+        }
+        final Triangulator sequential = new Triangulator(Icosahedron.build());
+        sequential.tessellate(3);
+        for (final Map.Entry<String, PositionVector[]> e : constraints.entrySet()) {
+            sequential.addConstraint(e.getKey(), e.getValue());
+        }
+
+        final Triangulator concurrent = new Triangulator(Icosahedron.build());
+        concurrent.tessellate(3);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            concurrent.addConstraints(constraints, executor, 4);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(faces(sequential), faces(concurrent));
+        assertEquals(constrainedCount(sequential), constrainedCount(concurrent));
+        assertDelaunay(concurrent);
+    }
+
+    @Test
+    public final void constraintKeptWhenAdjacentFaceDivided() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM });
+        triangulator.addPoint(EarthCoordinates.NORRKOPING);
+        triangulator.addPoint(EarthCoordinates.GOTEBORG);
+        for (final HalfEdge he : triangulator.edges()) {
+            assertEquals(he.isConstrained(), he.opposite().isConstrained());
+        }
+        assertEquals(2, constrainedCount(triangulator));
+    }
+
+    @Test
+    public final void listener() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(2);
+        final List<TriangulationDelta> deltas = new ArrayList<TriangulationDelta>();
+        triangulator.addListener(new TriangulationListener() {
+
+            @Override
+            public void triangulationChanged(final TriangulationDelta delta) {
+                deltas.add(delta);
+            }
+        });
+        final Set<Triangle> before = new HashSet<Triangle>(triangulator.faces());
+        triangulator.addConstraint("c", new PositionVector[] { EarthCoordinates.STOCKHOLM, EarthCoordinates.OREBRO,
+                EarthCoordinates.JONKOPING });
+        assertEquals(1, deltas.size());
+        final TriangulationDelta delta = deltas.get(0);
+        assertEquals(3, delta.constrainedEdges().size());
+        assertTrue(delta.unconstrainedEdges().isEmpty());
+        // applying the delta to the faces before the operation gives the faces after the operation
+        assertTrue(before.containsAll(delta.removedFaces()));
+        before.removeAll(delta.removedFaces());
+        before.addAll(delta.addedFaces());
+        assertEquals(new HashSet<Triangle>(triangulator.faces()), before);
+
+        triangulator.removeConstraint("c");
+        assertEquals(2, deltas.size());
+        assertEquals(3, deltas.get(1).unconstrainedEdges().size());
+        assertTrue(deltas.get(1).constrainedEdges().isEmpty());
+
+        // no change, no notification
+        triangulator.removeConstraint("c");
+        assertEquals(2, deltas.size());
+    }
+
+    @Test
+    public final void moveConstraint() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(3);
+        final int faces = triangulator.faces().size();
+        triangulator.addConstraint("c", new PositionVector[] { EarthCoordinates.STOCKHOLM, EarthCoordinates.OREBRO,
+                EarthCoordinates.JONKOPING });
+        assertTrue(triangulator.moveConstraint("c", new PositionVector[] { EarthCoordinates.STOCKHOLM,
+                EarthCoordinates.UPPSALA, EarthCoordinates.NORRKOPING }));
+        assertFalse(triangulator.moveConstraint("unknown", new PositionVector[0]));
+        assertEquals(faces + 2 * 3, triangulator.faces().size());
+        assertEquals(6, constrainedCount(triangulator));
+        assertDelaunay(triangulator);
+        triangulator.removeConstraint("c");
+        assertEquals(faces, triangulator.faces().size());
+    }
+
+    @Test
+    public final void addConstraintFailureLeavesTriangulationUnchanged() throws GeometryException,
+            TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM });
+        final Set<Set<PositionVector>> faces = faces(triangulator);
+        final PositionVector onC1 = new GreatArc(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM).midPoint();
+        try {
+            // lund is inserted before the second vertex is found on the constrained edge of c1
+            triangulator.addConstraint("c2", new PositionVector[] { EarthCoordinates.LUND, onC1 });
+            fail();
+        } catch (final ConstrainedEdgeException e) {
+            // expected
+        }
+        assertEquals(faces, faces(triangulator));
+        assertEquals(2, constrainedCount(triangulator));
+        assertFalse(triangulator.removeConstraint("c2"));
+        triangulator.addConstraint("c2", new PositionVector[] { EarthCoordinates.LUND, EarthCoordinates.KALMAR });
+        assertEquals(4, constrainedCount(triangulator));
+    }
+
+    @Test
+    public final void addConstraintsFailureLeavesTriangulationUnchanged() throws GeometryException,
+            TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM });
+        final Set<Set<PositionVector>> faces = faces(triangulator);
+        final PositionVector onC1 = new GreatArc(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM).midPoint();
+        final Map<String, PositionVector[]> constraints = new LinkedHashMap<String, PositionVector[]>();
+        constraints.put("c2", new PositionVector[] { EarthCoordinates.LUND, EarthCoordinates.KALMAR });
+        constraints.put("c3", new PositionVector[] { EarthCoordinates.YSTAD, onC1 });
+        try {
+            triangulator.addConstraints(constraints);
+            fail();
+        } catch (final ConstrainedEdgeException e) {
+            // expected
+        }
+        assertEquals(faces, faces(triangulator));
+        assertEquals(2, constrainedCount(triangulator));
+        assertFalse(triangulator.removeConstraint("c2"));
+        constraints.put("c3", new PositionVector[] { EarthCoordinates.YSTAD, EarthCoordinates.KALMAR });
+        triangulator.addConstraints(constraints);
+        assertEquals(6, constrainedCount(triangulator));
+    }
+
+    @Test
+    public final void addConstraintsConcurrentlyInterruptedLeavesTriangulationUnchanged() throws GeometryException,
+            TriangulationException, InterruptedException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(2);
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM });
+        final Set<Set<PositionVector>> faces = faces(triangulator);
+        final Map<String, PositionVector[]> constraints = new LinkedHashMap<String, PositionVector[]>();
+        constraints.put("c2", new PositionVector[] { EarthCoordinates.LUND, EarthCoordinates.KALMAR });
+        constraints.put("c3", new PositionVector[] { EarthCoordinates.YSTAD, EarthCoordinates.GOTEBORG });
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // interrupted while waiting for the planning tasks
+            Thread.currentThread().interrupt();
+            triangulator.addConstraints(constraints, executor, 2);
+            fail();
+        } catch (final InterruptedException e) {
+            // expected
+        } finally {
+            Thread.interrupted();
+            executor.shutdown();
+        }
+        assertEquals(faces, faces(triangulator));
+        assertEquals(2, constrainedCount(triangulator));
+        assertFalse(triangulator.removeConstraint("c2"));
+        triangulator.addConstraint("c2", constraints.get("c2"));
+        assertEquals(4, constrainedCount(triangulator));
+    }
+
+    @Test
+    public final void moveConstraintFailureRestoresConstraint() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("c2", new PositionVector[] { EarthCoordinates.GOTEBORG, EarthCoordinates.BORAS });
+        try {
+            // identical end points
+            triangulator.moveConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE,
+                    EarthCoordinates.MALMOE });
+            fail();
+        } catch (final GeometryException e) {
+            // expected
+        }
+        assertEquals(4, constrainedCount(triangulator));
+        assertTrue(triangulator.removeConstraint("c1"));
+    }
+
+    @Test
+    public final void moveConstraintFailureRemovesInsertedPoints() throws GeometryException,
+            TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("c2", new PositionVector[] { EarthCoordinates.GOTEBORG, EarthCoordinates.BORAS });
+        final Set<Set<PositionVector>> faces = faces(triangulator);
+        final PositionVector onC2 = new GreatArc(EarthCoordinates.GOTEBORG, EarthCoordinates.BORAS).midPoint();
+        try {
+            // lund is inserted before the second vertex is found on the constrained edge of c2
+            triangulator.moveConstraint("c1", new PositionVector[] { EarthCoordinates.LUND, onC2 });
+            fail();
+        } catch (final ConstrainedEdgeException e) {
+            // expected
+        }
+        assertEquals(faces, faces(triangulator));
+        assertEquals(4, constrainedCount(triangulator));
+        assertTrue(triangulator.removeConstraint("c1"));
+    }
+
+    @Test
+    public final void removeConstraint() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.tessellate(3);
+        final int faces = triangulator.faces().size();
+        triangulator.addConstraint("sweden", new PositionVector[] { EarthCoordinates.STOCKHOLM,
+                EarthCoordinates.OREBRO, EarthCoordinates.JONKOPING, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("south", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        assertEquals(faces + 2 * 5, triangulator.faces().size());
+
+        assertTrue(triangulator.removeConstraint("sweden"));
+        assertFalse(triangulator.removeConstraint("sweden"));
+        // kalmar is shared with the remaining constraint
+        assertEquals(faces + 2 * 2, triangulator.faces().size());
+        assertEquals(2, constrainedCount(triangulator));
+        assertDelaunay(triangulator);
+
+        assertTrue(triangulator.removeConstraint("south"));
+        assertEquals(faces, triangulator.faces().size());
+        assertEquals(0, constrainedCount(triangulator));
+        assertDelaunay(triangulator);
+    }
+
+    @Test
+    public final void removeConstraintSharedEdge() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.addConstraint("c1", new PositionVector[] { EarthCoordinates.MALMOE, EarthCoordinates.KALMAR });
+        triangulator.addConstraint("c2", new PositionVector[] { EarthCoordinates.KALMAR, EarthCoordinates.MALMOE });
+        triangulator.removeConstraint("c1");
+        assertEquals(2, constrainedCount(triangulator));
+        triangulator.removeConstraint("c2");
+        assertEquals(0, constrainedCount(triangulator));
+        assertEquals(20, triangulator.faces().size());
+    }
+
+    @Test
+    public final void subdivide() throws GeometryException, TriangulationException {
+        final Triangulator triangulator = new Triangulator(Icosahedron.build());
+        triangulator.subdivide(4);
+        assertEquals(5120, triangulator.faces().size());
+        for (final HalfEdge he : triangulator.edges()) {
+            final PositionVector opposed = he.opposite().previous().vertex();
+            assertFalse(he.face().circumcircleStrictlyContains(opposed));
+        }
+        // still a valid triangulation
+        triangulator.addPoint(EarthCoordinates.MALMOE);
+        assertEquals(5122, triangulator.faces().size());
+    }
+
     @Test
     public final void tesselate() throws GeometryException, TriangulationException {
         final Triangulator triangulator = new Triangulator(Icosahedron.build().subList(0, 1));
@@ -27,4 +348,31 @@ public final class TriangulatorTest {
         assertEquals(2187, triangulator.faces().size());
     }
 
+    private static void assertDelaunay(final Triangulator triangulator) {
+        for (final HalfEdge he : triangulator.edges()) {
+            if (!he.isConstrained()) {
+                final PositionVector opposed = he.opposite().previous().vertex();
+                assertFalse(he.face().circumcircleStrictlyContains(opposed));
+            }
+        }
+    }
+
+    private static Set<Set<PositionVector>> faces(final Triangulator triangulator) {
+        final Set<Set<PositionVector>> result = new HashSet<Set<PositionVector>>();
+        for (final Triangle face : triangulator.faces()) {
+            result.add(new HashSet<PositionVector>(face.vertices()));
+        }
+        return result;
+    }
+
+    private static int constrainedCount(final Triangulator triangulator) {
+        int result = 0;
+        for (final HalfEdge he : triangulator.edges()) {
+            if (he.isConstrained()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,99 @@
+package org.omam.sherpa.delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.omam.sherpa.geometry.EarthCoordinates;
+import org.omam.sherpa.geometry.PositionVector;
+
+public final class VertexRegistryTest {
+
+    @Test
+    public final void denseIds() {
+        final VertexRegistry registry = new VertexRegistry();
+        assertEquals(0, registry.register(EarthCoordinates.MALMOE));
+        assertEquals(1, registry.register(EarthCoordinates.KALMAR));
+        assertEquals(0, registry.register(EarthCoordinates.MALMOE));
+        assertEquals(2, registry.register(EarthCoordinates.STOCKHOLM));
+        assertEquals(3, registry.size());
+        assertEquals(EarthCoordinates.KALMAR, registry.vertex(1));
+        assertEquals(-1, registry.id(EarthCoordinates.LUND));
+    }
+
+    @Test
+    public final void equalVerticesInNeighbouringCells() {
+        final double eps = PositionVector.CARTESIAN_EPSILON;
+        // both vertices are equal but on either side of a cell boundary
+        final PositionVector v1 = new PositionVector(100 * eps - eps / 4, 0.5, 0.5);
+        final PositionVector v2 = new PositionVector(100 * eps + eps / 4, 0.5, 0.5);
+        assertTrue(v1.equals(v2));
+        final VertexRegistry registry = new VertexRegistry();
+        final int id = registry.register(v1);
+        assertEquals(id, registry.id(v2));
+        assertEquals(id, registry.register(v2));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public final void distinctVertices() {
+        final VertexRegistry registry = new VertexRegistry();
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, registry.register(new PositionVector(Math.cos(i), Math.sin(i), i / 1000.0)));
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, registry.id(new PositionVector(Math.cos(i), Math.sin(i), i / 1000.0)));
+        }
+        final PositionVector far = new PositionVector(0.0, 0.0, 2.0 + 2 * PositionVector.CARTESIAN_EPSILON);
+        assertEquals(-1, registry.id(far));
+    }
+
+    @Test
+    public final void releasedIdsReused() {
+        final VertexRegistry registry = new VertexRegistry();
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            registry.register(new PositionVector(Math.cos(i), Math.sin(i), i / 1000.0));
+        }
+        for (int i = 0; i < count; i += 2) {
+            registry.release(i);
+        }
+        // the remaining vertices are still found and the released ones no longer are
+        for (int i = 0; i < count; i++) {
+            final int expected = i % 2 == 0 ? -1 : i;
+            assertEquals(expected, registry.id(new PositionVector(Math.cos(i), Math.sin(i), i / 1000.0)));
+        }
+        for (int i = 0; i < count / 2; i++) {
+            final int id = registry.register(new PositionVector(Math.sin(i), Math.cos(i), -i / 1000.0));
+            assertEquals(0, id % 2);
+        }
+        assertEquals(count, registry.size());
+        assertEquals(count, registry.register(EarthCoordinates.MALMOE));
+    }
+
+    @Test
+    public final void edgeKeys() {
+        final LongMap<String> map = new LongMap<String>();
+        final int count = 500;
+        for (int i = 0; i < count; i++) {
+            map.put(VertexRegistry.edgeKey(i, i + 1), "e" + i);
+        }
+        // remove every other edge and check the remaining ones are still reachable
+        for (int i = 0; i < count; i += 2) {
+            assertEquals("e" + i, map.remove(VertexRegistry.edgeKey(i, i + 1)));
+        }
+        assertEquals(count / 2, map.size());
+        for (int i = 0; i < count; i++) {
+            final String actual = map.get(VertexRegistry.edgeKey(i, i + 1));
+            if (i % 2 == 0) {
+                assertNull(actual);
+            } else {
+                assertEquals("e" + i, actual);
+            }
+            assertNull(map.get(VertexRegistry.edgeKey(i + 1, i)));
+        }
+    }
+
+}
@@ -6,6 +6,8 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 public final class GreatArcTest {
@@ -34,6 +36,75 @@ public final class GreatArcTest {
         assertFalse(ga.contains(EarthCoordinates.MELBOURNE));
     }
 
+    @Test
+    public final void crosses() throws GeometryException {
+        final GreatArc ga1 = new GreatArc(CoordinatesConverter.toCartesian(60.0, -60.0),
+                CoordinatesConverter.toCartesian(-60.0, 60.0));
+        final GreatArc ga2 = new GreatArc(CoordinatesConverter.toCartesian(60.0, 60.0),
+                CoordinatesConverter.toCartesian(-60.0, -60.0));
+        assertTrue(ga1.crosses(ga2));
+        assertTrue(ga2.crosses(ga1));
+        assertTrue(ga1.opposite().crosses(ga2));
+        assertFalse(ga1.crosses(new GreatArc(ga1.from(), ga2.from())));
+        assertFalse(ga1.crosses(new GreatArc(CoordinatesConverter.toCartesian(10.0, 100.0),
+                CoordinatesConverter.toCartesian(20.0, 120.0))));
+    }
+
+    @Test
+    public final void crossesTouchingAndCollinear() throws GeometryException {
+        final GreatArc equator = new GreatArc(CoordinatesConverter.toCartesian(0.0, -10.0),
+                CoordinatesConverter.toCartesian(0.0, 10.0));
+        // meridian arc crossing the equator at [1, 0, 0]
+        final GreatArc crossing = new GreatArc(CoordinatesConverter.toCartesian(-10.0, 0.0),
+                CoordinatesConverter.toCartesian(10.0, 0.0));
+        assertTrue(equator.crosses(crossing));
+        assertTrue(crossing.crosses(equator));
+        assertTrue(PositionVector.equals(0.0, equator.intersection(crossing, false).distance(new PositionVector(1.0,
+                0.0, 0.0))));
+        // meridian arc ending on the equator
+        final GreatArc touching = new GreatArc(CoordinatesConverter.toCartesian(0.0, 0.0),
+                CoordinatesConverter.toCartesian(10.0, 0.0));
+        assertFalse(equator.crosses(touching));
+        assertFalse(touching.crosses(equator));
+        // meridian arc ending just short of the equator
+        final GreatArc nearMiss = new GreatArc(CoordinatesConverter.toCartesian(1.0, 0.0),
+                CoordinatesConverter.toCartesian(10.0, 0.0));
+        assertFalse(equator.crosses(nearMiss));
+        assertNull(equator.intersection(nearMiss, false));
+        // overlapping arcs of the equator
+        final GreatArc collinear = new GreatArc(CoordinatesConverter.toCartesian(0.0, -5.0),
+                CoordinatesConverter.toCartesian(0.0, 20.0));
+        assertFalse(equator.crosses(collinear));
+        assertNull(equator.intersection(collinear, false));
+    }
+
+    @Test
+    public final void crossesAgreesWithAngles() throws GeometryException {
+        final Random random = new Random(1L);
+        int decided = 0;
+        for (int i = 0; i < 10000; i++) {
+            final GreatArc ga1 = new GreatArc(random(random), random(random));
+            final GreatArc ga2 = new GreatArc(random(random), random(random));
+            final Boolean expected = crossesByAngles(ga1, ga2);
+            if (expected != null) {
+                decided++;
+                assertEquals(expected.booleanValue(), ga1.crosses(ga2));
+                assertEquals(expected.booleanValue(), ga1.intersection(ga2, false) != null);
+            }
+        }
+        assertTrue(decided > 9900);
+    }
+
+    @Test
+    public final void doNotCrossAntipodalIntersections() throws GeometryException {
+        // both great circles intersect at [1, 0, 0] and [-1, 0, 0], each arc contains one of them.
+        final double d = Math.sqrt(0.5);
+        final GreatArc ga1 = new GreatArc(new PositionVector(d, -d, 0.0), new PositionVector(d, d, 0.0));
+        final GreatArc ga2 = new GreatArc(new PositionVector(-d, 0.0, -d), new PositionVector(-d, 0.0, d));
+        assertFalse(ga1.crosses(ga2));
+        assertFalse(ga1.intersects(ga2, false));
+    }
+
     @Test
     public final void doNotIntersect() throws GeometryException {
         final GreatArc ga1 = new GreatArc(EarthCoordinates.NORRKOPING, EarthCoordinates.STOCKHOLM);
@@ -154,4 +225,65 @@ public final class GreatArcTest {
         new GreatArc(EarthCoordinates.OREBRO, EarthCoordinates.OREBRO);
     }
 
+    /**
+     * Tells whether both great arcs cross using angles only: one of the two intersections of their
+     * great circles must lie within both arcs - the angles from the end points to the intersection
+     * add up to the angle of the arc. Returns <code>null</code> if rounding errors could decide
+     * either way.
+     */
+    private static Boolean crossesByAngles(final GreatArc ga1, final GreatArc ga2) {
+        final double[] i = cross(cross(vector(ga1.from()), vector(ga1.to())), cross(vector(ga2.from()),
+                vector(ga2.to())));
+        final double norm = Math.sqrt(i[0] * i[0] + i[1] * i[1] + i[2] * i[2]);
+        if (norm < 1e-6) {
+            return null;
+        }
+        Boolean result = Boolean.FALSE;
+        for (final double sign : new double[] { 1.0, -1.0 }) {
+            final double[] p = { sign * i[0] / norm, sign * i[1] / norm, sign * i[2] / norm };
+            final Boolean within1 = within(ga1, p);
+            final Boolean within2 = within(ga2, p);
+            if (within1 == null || within2 == null) {
+                return null;
+            }
+            if (within1.booleanValue() && within2.booleanValue()) {
+                result = Boolean.TRUE;
+            }
+        }
+        return result;
+    }
+
+    private static Boolean within(final GreatArc ga, final double[] p) {
+        final double[] from = vector(ga.from());
+        final double[] to = vector(ga.to());
+        final double toFrom = angle(from, p);
+        final double toTo = angle(p, to);
+        final double excess = toFrom + toTo - angle(from, to);
+        if (excess > 1e-6) {
+            return Boolean.FALSE;
+        }
+        if (excess < 1e-12 && Math.min(toFrom, toTo) > 1e-6) {
+            return Boolean.TRUE;
+        }
+        return null;
+    }
+
+    private static double angle(final double[] u, final double[] v) {
+        final double[] c = cross(u, v);
+        return Math.atan2(Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2]), u[0] * v[0] + u[1] * v[1] + u[2]
+                * v[2]);
+    }
+
+    private static double[] cross(final double[] u, final double[] v) {
+        return new double[] { u[1] * v[2] - u[2] * v[1], u[2] * v[0] - u[0] * v[2], u[0] * v[1] - u[1] * v[0] };
+    }
+
+    private static double[] vector(final PositionVector v) {
+        return new double[] { v.x(), v.y(), v.z() };
+    }
+
+    private static PositionVector random(final Random random) {
+        return CoordinatesConverter.toCartesian(random.nextDouble() * 180.0 - 90.0, random.nextDouble() * 360.0 - 180.0);
+    }
+
 }
@@ -0,0 +1,35 @@
+package org.omam.sherpa.geometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public final class HilbertOrderTest {
+
+    @Test
+    public final void neighbours() {
+        final List<PositionVector> sorted = HilbertOrder.sort(Arrays.asList(EarthCoordinates.MELBOURNE,
+                EarthCoordinates.MALMOE, EarthCoordinates.ADELAIDE, EarthCoordinates.LUND));
+        final int malmoe = sorted.indexOf(EarthCoordinates.MALMOE);
+        final int lund = sorted.indexOf(EarthCoordinates.LUND);
+        final int melbourne = sorted.indexOf(EarthCoordinates.MELBOURNE);
+        final int adelaide = sorted.indexOf(EarthCoordinates.ADELAIDE);
+        assertEquals(1, Math.abs(malmoe - lund));
+        assertEquals(1, Math.abs(melbourne - adelaide));
+    }
+
+    @Test
+    public final void permutation() {
+        final List<PositionVector> points = Arrays.asList(EarthCoordinates.BORAS, EarthCoordinates.PERTH,
+                EarthCoordinates.DARWIN, EarthCoordinates.STOCKHOLM, EarthCoordinates.BRISBANE);
+        final List<PositionVector> sorted = HilbertOrder.sort(points);
+        assertEquals(points.size(), sorted.size());
+        assertTrue(new HashSet<PositionVector>(points).equals(new HashSet<PositionVector>(sorted)));
+    }
+
+}
@@ -38,6 +38,36 @@ public final class PositionVectorTest {
         assertTrue(PositionVector.equals(-19.0, actual.z()));
     }
 
+    @Test
+    public final void geodetic() {
+        final PositionVector v = CoordinatesConverter.toCartesian(57.7, 11.966667);
+        final double[] actual = CoordinatesConverter.toGeodetic(v);
+        assertEquals(57.7, actual[0], 1e-9);
+        assertEquals(11.966667, actual[1], 1e-9);
+        assertEquals(57.7, CoordinatesConverter.latitude(v), 1e-9);
+        assertEquals(11.966667, CoordinatesConverter.longitude(v), 1e-9);
+        // modifying the returned array does not alter the cached coordinates.
+        actual[0] = 0.0;
+        assertEquals(57.7, CoordinatesConverter.toGeodetic(v)[0], 1e-9);
+    }
+
+    @Test
+    public final void geodeticArrays() {
+        final PositionVector[] vs = { EarthCoordinates.LUND, EarthCoordinates.KALMAR, EarthCoordinates.BORAS };
+        final double[] xyz = new double[3 * vs.length];
+        for (int i = 0; i < vs.length; i++) {
+            xyz[3 * i] = vs[i].x();
+            xyz[3 * i + 1] = vs[i].y();
+            xyz[3 * i + 2] = vs[i].z();
+        }
+        final double[] latlon = new double[2 * vs.length];
+        CoordinatesConverter.toGeodetic(xyz, latlon);
+        for (int i = 0; i < vs.length; i++) {
+            assertEquals(CoordinatesConverter.latitude(vs[i]), latlon[2 * i], 1e-12);
+            assertEquals(CoordinatesConverter.longitude(vs[i]), latlon[2 * i + 1], 1e-12);
+        }
+    }
+
     @Test
     public final void distance() {
         final PositionVector v1 = CoordinatesConverter.toCartesian(55.583333, 13.033333);
@@ -92,6 +122,22 @@ public final class PositionVectorTest {
         assertTrue(v0.leftOf(v1, v2));
     }
 
+    @Test
+    public final void sideCollinear() throws GeometryException {
+        final PositionVector mid = new GreatArc(EarthCoordinates.MELBOURNE, EarthCoordinates.DARWIN).midPoint();
+        assertEquals(Side.COLLINEAR, mid.side(EarthCoordinates.MELBOURNE, EarthCoordinates.DARWIN));
+    }
+
+    @Test
+    public final void sideLeft() {
+        assertEquals(Side.LEFT, EarthCoordinates.KALMAR.side(EarthCoordinates.STOCKHOLM, EarthCoordinates.MALMOE));
+    }
+
+    @Test
+    public final void sideRight() {
+        assertEquals(Side.RIGHT, EarthCoordinates.KALMAR.side(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM));
+    }
+
     @Test
     public final void norm() {
         final PositionVector v = new PositionVector(1, 5, 4);
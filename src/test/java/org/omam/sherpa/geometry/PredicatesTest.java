@@ -0,0 +1,68 @@
+package org.omam.sherpa.geometry;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public final class PredicatesTest {
+
+    @Test
+    public final void inCircleInside() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
+        final PositionVector v0 = t.vertices().get(0);
+        final PositionVector v1 = t.vertices().get(1);
+        final PositionVector v2 = t.vertices().get(2);
+        assertEquals(1, Predicates.inCircle(v0, v1, v2, EarthCoordinates.KALMAR));
+    }
+
+    @Test
+    public final void inCircleOnVertex() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
+        final PositionVector v0 = t.vertices().get(0);
+        final PositionVector v1 = t.vertices().get(1);
+        final PositionVector v2 = t.vertices().get(2);
+        assertEquals(0, Predicates.inCircle(v0, v1, v2, v0));
+        assertEquals(0, Predicates.inCircle(v0, v1, v2, v1));
+        assertEquals(0, Predicates.inCircle(v0, v1, v2, v2));
+    }
+
+    @Test
+    public final void inCircleOutside() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
+        final PositionVector v0 = t.vertices().get(0);
+        final PositionVector v1 = t.vertices().get(1);
+        final PositionVector v2 = t.vertices().get(2);
+        assertEquals(-1, Predicates.inCircle(v0, v1, v2, EarthCoordinates.MELBOURNE));
+    }
+
+    @Test
+    public final void orient() {
+        assertEquals(1, Predicates.orient(EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM, EarthCoordinates.MALMOE));
+        assertEquals(-1, Predicates.orient(EarthCoordinates.KALMAR, EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM));
+        assertEquals(0, Predicates.orient(EarthCoordinates.KALMAR, EarthCoordinates.KALMAR, EarthCoordinates.STOCKHOLM));
+    }
+
+    @Test
+    public final void orientNearlyCollinearIsConsistent() throws GeometryException {
+        /*
+         * points on a great circle are collinear up to rounding errors: whatever the sign, it must
+         * not depend on the order in which the points are given.
+         */
+        final Random random = new Random(42L);
+        for (int i = 0; i < 1000; i++) {
+            final PositionVector a = CoordinatesConverter.toCartesian(random.nextDouble() * 160.0 - 80.0,
+                    random.nextDouble() * 360.0 - 180.0);
+            final PositionVector b = CoordinatesConverter.toCartesian(random.nextDouble() * 160.0 - 80.0,
+                    random.nextDouble() * 360.0 - 180.0);
+            final PositionVector c = new GreatArc(a, b).midPoint();
+            final int expected = Predicates.orient(a, b, c);
+            assertEquals(expected, Predicates.orient(b, c, a));
+            assertEquals(expected, Predicates.orient(c, a, b));
+            assertEquals(-expected, Predicates.orient(b, a, c));
+            assertEquals(-expected, Predicates.orient(a, c, b));
+        }
+    }
+
+}
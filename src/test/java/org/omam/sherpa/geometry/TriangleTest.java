@@ -2,8 +2,11 @@ package org.omam.sherpa.geometry;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 public class TriangleTest {
@@ -16,6 +19,16 @@ public class TriangleTest {
         assertEquals(EarthCoordinates.GOTEBORG, t.vertices().get(2));
     }
 
+    @Test
+    public final void cachedDerivedGeometry() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        assertSame(t.edges(), t.edges());
+        assertSame(t.vertices(), t.vertices());
+        assertSame(t.circumcentre(), t.circumcentre());
+        assertSame(t.centroid(), t.centroid());
+        assertSame(t.edges().get(1), t.opposedEdge(EarthCoordinates.MALMOE));
+    }
+
     @Test
     public final void centroid() throws GeometryException {
         final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
@@ -47,6 +60,20 @@ public class TriangleTest {
         assertTrue(t.circumcircleContains(CoordinatesConverter.toCartesian(11.5662, 10.7335)));
     }
 
+    @Test
+    public final void circumcircleContainsSameAsDistance() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
+        final double circumradius = t.circumcentre().distance(EarthCoordinates.MALMOE);
+        final Random random = new Random(7L);
+        for (int i = 0; i < 1000; i++) {
+            final PositionVector p = CoordinatesConverter.toCartesian(50.0 + random.nextDouble() * 15.0,
+                    5.0 + random.nextDouble() * 20.0);
+            final double distance = p.distance(t.circumcentre());
+            final boolean expected = distance < circumradius || PositionVector.equals(distance, circumradius);
+            assertEquals(expected, t.circumcircleContains(p));
+        }
+    }
+
     @Test
     public final void circumcircleDoesNotContain() throws GeometryException {
         final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
@@ -73,6 +100,14 @@ public class TriangleTest {
         assertFalse(t.contains(EarthCoordinates.KALMAR));
     }
 
+    @Test
+    public final void doesNotContainAntipode() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        final PositionVector inside = t.centroid();
+        assertTrue(t.contains(inside));
+        assertFalse(t.contains(new PositionVector(-inside.x(), -inside.y(), -inside.z())));
+    }
+
     @Test
     public final void doesNotContainIsAVertex() throws GeometryException {
         final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
@@ -96,10 +131,22 @@ public class TriangleTest {
         assertEquals(EarthCoordinates.MALMOE, t.edges().get(2).to());
     }
 
+    @Test
+    public final void nearEdge() throws GeometryException {
+        final Triangle t = new Triangle(new PositionVector(1.0, 0.0, 0.0), new PositionVector(0.0, 1.0, 0.0),
+                new PositionVector(0.0, 0.0, 1.0));
+        final double c = Math.sqrt(0.5);
+        // within the tolerance of the first edge, but strictly inside the triangle
+        assertTrue(t.contains(new PositionVector(c, c, PositionVector.CARTESIAN_EPSILON / 10)));
+        assertFalse(t.contains(new PositionVector(c, c, -PositionVector.CARTESIAN_EPSILON / 10)));
+    }
+
     @Test(expected = CollinearPointsException.class)
     public final void onEdge() throws GeometryException {
-        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG, EarthCoordinates.STOCKHOLM);
-        t.contains(new GreatArc(EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG).midPoint());
+        final Triangle t = new Triangle(new PositionVector(1.0, 0.0, 0.0), new PositionVector(0.0, 1.0, 0.0),
+                new PositionVector(0.0, 0.0, 1.0));
+        final double c = Math.sqrt(0.5);
+        t.contains(new PositionVector(c, c, 0.0));
     }
 
     @Test
@@ -132,6 +179,20 @@ public class TriangleTest {
         assertEquals(EarthCoordinates.MALMOE, t.vertices().get(2));
     }
 
+    @Test
+    public final void side() throws GeometryException {
+        final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.STOCKHOLM, EarthCoordinates.GOTEBORG);
+        final PositionVector[] points = { t.centroid(), EarthCoordinates.KALMAR, EarthCoordinates.LUND,
+                EarthCoordinates.BORAS, t.edges().get(1).midPoint() };
+        for (int edge = 0; edge < 3; edge++) {
+            final GreatArc arc = t.edges().get(edge);
+            for (final PositionVector p : points) {
+                final int orient = Predicates.orient(p, arc.from(), arc.to());
+                assertEquals(orient > 0 ? Side.LEFT : orient < 0 ? Side.RIGHT : Side.COLLINEAR, t.side(edge, p));
+            }
+        }
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public final void unmodifiableEdges() throws GeometryException {
         final Triangle t = new Triangle(EarthCoordinates.MALMOE, EarthCoordinates.KALMAR, EarthCoordinates.GOTEBORG);
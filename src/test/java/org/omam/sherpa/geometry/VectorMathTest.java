@@ -0,0 +1,49 @@
+package org.omam.sherpa.geometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public final class VectorMathTest {
+
+    @Test
+    public final void cross() {
+        final double[] actual = new double[4];
+        VectorMath.cross(1, 4, 5, 5, 1, 4, actual, 1);
+        assertEquals(11.0, actual[1], 0.0);
+        assertEquals(21.0, actual[2], 0.0);
+        assertEquals(-19.0, actual[3], 0.0);
+    }
+
+    @Test
+    public final void intersection() {
+        final double[] actual = new double[3];
+        // equator and meridian 0
+        assertTrue(VectorMath.intersection(0, 0, 1, 0, 1, 0, actual, 0));
+        assertEquals(-1.0, actual[0], 1e-15);
+        assertEquals(0.0, actual[1], 1e-15);
+        assertEquals(0.0, actual[2], 1e-15);
+        // same great circle
+        assertFalse(VectorMath.intersection(0, 0, 1, 0, 0, 2, actual, 0));
+    }
+
+    @Test
+    public final void norm() {
+        assertEquals(3.0, VectorMath.norm(1, 2, 2), 0.0);
+    }
+
+    @Test
+    public final void tripleProduct() {
+        final PositionVector a = EarthCoordinates.KALMAR;
+        final PositionVector b = EarthCoordinates.MALMOE;
+        final PositionVector c = EarthCoordinates.STOCKHOLM;
+        final double expected = a.dot(b.cross(c));
+        assertEquals(expected, VectorMath.tripleProduct(a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z()),
+                1e-18);
+        assertEquals(Predicates.orient(a, b, c),
+                Predicates.orient(a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z()));
+    }
+
+}
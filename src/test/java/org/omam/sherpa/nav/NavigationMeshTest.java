@@ -0,0 +1,140 @@
+package org.omam.sherpa.nav;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.omam.sherpa.delaunay.TriangulationDelta;
+import org.omam.sherpa.delaunay.TriangulationException;
+import org.omam.sherpa.delaunay.TriangulationListener;
+import org.omam.sherpa.geometry.EarthCoordinates;
+import org.omam.sherpa.geometry.GeometryException;
+import org.omam.sherpa.geometry.PositionVector;
+
+public final class NavigationMeshTest {
+
+    /** obstacle enclosing Norrkoping. */
+    private static final PositionVector[] AROUND_NORRKOPING = { EarthCoordinates.STOCKHOLM, EarthCoordinates.OREBRO,
+            EarthCoordinates.JONKOPING, EarthCoordinates.KALMAR };
+
+    private NavigationMesh navMesh;
+
+    @Before
+    public final void before() throws GeometryException, TriangulationException {
+        navMesh = new NavigationMesh(3, Tessellation.SUBDIVISION);
+    }
+
+    @Test
+    public final void listenerNotifiedAfterPublication() throws GeometryException, TriangulationException {
+        final List<NavigationMeshSnapshot> notified = new ArrayList<NavigationMeshSnapshot>();
+        navMesh.addListener(new TriangulationListener() {
+
+            @Override
+            public void triangulationChanged(final TriangulationDelta delta) {
+                assertEquals(4, delta.constrainedEdges().size());
+                notified.add(navMesh.snapshot());
+            }
+        });
+        final NavigationMeshSnapshot before = navMesh.snapshot();
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        assertEquals(1, notified.size());
+        assertTrue(notified.get(0) != before);
+    }
+
+    @Test
+    public final void moveObstacle() throws GeometryException, TriangulationException {
+        navMesh.addObstacle("obstacle", AROUND_NORRKOPING);
+        final NavigationMeshSnapshot before = navMesh.snapshot();
+        assertTrue(navMesh.moveObstacle("obstacle", new PositionVector[] { EarthCoordinates.GOTEBORG,
+                EarthCoordinates.BORAS, EarthCoordinates.TROLLHATTAN }));
+        assertTrue(navMesh.snapshot() != before);
+        assertFalse(navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+    }
+
+    @Test
+    public final void noRouteToEnclosedPoint() throws GeometryException, TriangulationException {
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        assertTrue(navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+    }
+
+    @Test
+    public final void removeObstacle() throws GeometryException, TriangulationException {
+        navMesh.addObstacle("norrkoping", AROUND_NORRKOPING);
+        assertTrue(navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+        assertTrue(navMesh.removeObstacle("norrkoping"));
+        assertFalse(navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+    }
+
+    @Test
+    public final void route() throws GeometryException, TriangulationException {
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        final List<PositionVector> route = navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.MELBOURNE);
+        assertTrue(route.size() > 2);
+        assertEquals(EarthCoordinates.MALMOE, route.get(0));
+        assertEquals(EarthCoordinates.MELBOURNE, route.get(route.size() - 1));
+    }
+
+    @Test
+    public final void routeAroundObstacle() throws GeometryException, TriangulationException {
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        final List<PositionVector> route = navMesh.route(EarthCoordinates.GOTEBORG, EarthCoordinates.NORRTALJE);
+        assertEquals(EarthCoordinates.GOTEBORG, route.get(0));
+        assertEquals(EarthCoordinates.NORRTALJE, route.get(route.size() - 1));
+        assertTrue(route.contains(EarthCoordinates.OREBRO));
+    }
+
+    @Test
+    public final void routes() throws GeometryException, TriangulationException, InterruptedException {
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        final PositionVector[] points = { EarthCoordinates.MALMOE, EarthCoordinates.GOTEBORG,
+                EarthCoordinates.NORRTALJE, EarthCoordinates.NORRKOPING, EarthCoordinates.PERTH,
+                EarthCoordinates.SODERHAMN };
+        final List<RouteRequest> requests = new ArrayList<RouteRequest>();
+        for (final PositionVector from : points) {
+            for (final PositionVector to : points) {
+                requests.add(new RouteRequest(from, to));
+            }
+        }
+        final List<List<PositionVector>> routes = navMesh.routes(requests);
+        assertEquals(requests.size(), routes.size());
+        for (int index = 0; index < requests.size(); index++) {
+            final RouteRequest request = requests.get(index);
+            assertEquals(navMesh.route(request.from(), request.to()), routes.get(index));
+        }
+    }
+
+    @Test
+    public final void snapshotSharedUntilModified() throws GeometryException, TriangulationException {
+        final NavigationMeshSnapshot before = navMesh.snapshot();
+        assertSame(before, navMesh.snapshot());
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        navMesh.addObstacle(new PositionVector[] { EarthCoordinates.GOTEBORG, EarthCoordinates.BORAS,
+                EarthCoordinates.TROLLHATTAN });
+        final NavigationMeshSnapshot after = navMesh.snapshot();
+        assertTrue(after != before);
+        assertSame(after, navMesh.snapshot());
+        assertTrue(after.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+    }
+
+    @Test
+    public final void snapshotNotAffectedByLaterObstacles() throws GeometryException, TriangulationException {
+        final NavigationMeshSnapshot before = navMesh.snapshot();
+        navMesh.addObstacle(AROUND_NORRKOPING);
+        assertTrue(navMesh.snapshot() != before);
+        assertTrue(navMesh.snapshot().route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).isEmpty());
+        assertEquals(2, before.route(EarthCoordinates.MALMOE, EarthCoordinates.NORRKOPING).size());
+    }
+
+    @Test
+    public final void routeWithinFace() {
+        final List<PositionVector> route = navMesh.route(EarthCoordinates.MALMOE, EarthCoordinates.LUND);
+        assertEquals(2, route.size());
+    }
+
+}
@@ -5,25 +5,40 @@ import gov.nasa.worldwind.render.SurfacePolygon;
 import gov.nasa.worldwind.render.SurfacePolyline;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.omam.sherpa.delaunay.HalfEdge;
+import org.omam.sherpa.delaunay.TriangulationDelta;
 import org.omam.sherpa.delaunay.TriangulationException;
+import org.omam.sherpa.delaunay.TriangulationListener;
 import org.omam.sherpa.geometry.CoordinatesConverter;
 import org.omam.sherpa.geometry.GeometryException;
+import org.omam.sherpa.geometry.GreatArc;
 import org.omam.sherpa.geometry.PositionVector;
 import org.omam.sherpa.geometry.Triangle;
 import org.omam.sherpa.nav.NavigationMesh;
+import org.omam.sherpa.nav.Tessellation;
 
-public final class NavigationMeshModel {
+public final class NavigationMeshModel implements TriangulationListener {
 
     private final NavigationMesh navMesh;
 
     private final List<NavigationMeshModelListener> listeners;
 
+    /** face to its renderable. */
+    private final Map<Triangle, SurfacePolygon> faces;
+
+    /** constrained edge to its renderable - one direction per edge. */
+    private final Map<GreatArc, SurfacePolyline> constrainedEdges;
+
     public NavigationMeshModel() throws GeometryException, TriangulationException {
-        navMesh = new NavigationMesh(5);
+        navMesh = new NavigationMesh(4, Tessellation.SUBDIVISION);
         listeners = new ArrayList<NavigationMeshModelListener>();
+        faces = new HashMap<Triangle, SurfacePolygon>();
+        constrainedEdges = new HashMap<GreatArc, SurfacePolyline>();
+        navMesh.addListener(this);
     }
 
     public final void addListener(final NavigationMeshModelListener l) {
@@ -31,13 +46,12 @@ public final class NavigationMeshModel {
     }
 
     public final void init() {
-        fireNavMeshChanged();
+        fireNavMeshLoaded();
     }
 
     public final void newObstacle(final SurfacePolygon o) {
         try {
             navMesh.addObstacle(createVertices(o));
-            fireNavMeshChanged();
         } catch (final GeometryException e) {
             fireNavMeshError(e);
         } catch (final TriangulationException e) {
@@ -45,9 +59,40 @@ public final class NavigationMeshModel {
         }
     }
 
+    @Override
+    public final void triangulationChanged(final TriangulationDelta delta) {
+        final List<SurfacePolygon> removedFaces = new ArrayList<SurfacePolygon>();
+        for (final Triangle face : delta.removedFaces()) {
+            final SurfacePolygon polygon = faces.remove(face);
+            if (polygon != null) {
+                removedFaces.add(polygon);
+            }
+        }
+        final List<SurfacePolygon> addedFaces = new ArrayList<SurfacePolygon>();
+        for (final Triangle face : delta.addedFaces()) {
+            addedFaces.add(createFace(face));
+        }
+
+        final List<SurfacePolyline> removedEdges = new ArrayList<SurfacePolyline>();
+        for (final GreatArc edge : delta.unconstrainedEdges()) {
+            SurfacePolyline polyline = constrainedEdges.remove(edge);
+            if (polyline == null) {
+                polyline = constrainedEdges.remove(edge.opposite());
+            }
+            if (polyline != null) {
+                removedEdges.add(polyline);
+            }
+        }
+        final List<SurfacePolyline> addedEdges = new ArrayList<SurfacePolyline>();
+        for (final GreatArc edge : delta.constrainedEdges()) {
+            addedEdges.add(createConstrainedEdge(edge));
+        }
+
+        fireNavMeshUpdated(addedFaces, removedFaces, addedEdges, removedEdges);
+    }
+
     private LatLon convert(final PositionVector v) {
-        final double[] geodeticCoord = CoordinatesConverter.toGeodetic(v);
-        return LatLon.fromDegrees(geodeticCoord[0], geodeticCoord[1]);
+        return LatLon.fromDegrees(CoordinatesConverter.latitude(v), CoordinatesConverter.longitude(v));
     }
 
     private PositionVector[] createVertices(final SurfacePolygon o) {
@@ -59,28 +104,49 @@ public final class NavigationMeshModel {
         return vertices.toArray(new PositionVector[vertices.size()]);
     }
 
-    private void fireNavMeshChanged() {
-        final List<SurfacePolygon> faces = new ArrayList<SurfacePolygon>();
+    private SurfacePolyline createConstrainedEdge(final GreatArc edge) {
+        final List<LatLon> locations = new ArrayList<LatLon>();
+        locations.add(convert(edge.from()));
+        locations.add(convert(edge.to()));
+        final SurfacePolyline result = new SurfacePolyline(locations);
+        constrainedEdges.put(edge, result);
+        return result;
+    }
+
+    private SurfacePolygon createFace(final Triangle face) {
+        final List<LatLon> coords = new ArrayList<LatLon>();
+        for (final PositionVector pt : face.vertices()) {
+            coords.add(convert(pt));
+        }
+        final SurfacePolygon result = new SurfacePolygon(coords);
+        faces.put(face, result);
+        return result;
+    }
+
+    private void fireNavMeshLoaded() {
+        faces.clear();
+        constrainedEdges.clear();
         for (final Triangle triangle : navMesh.faces()) {
-            final List<LatLon> coords = new ArrayList<LatLon>();
-            for (final PositionVector pt : triangle.vertices()) {
-                coords.add(convert(pt));
-            }
-            faces.add(new SurfacePolygon(coords));
+            createFace(triangle);
         }
 
-        final List<SurfacePolyline> constrainedEdges = new ArrayList<SurfacePolyline>();
         for (final HalfEdge edge : navMesh.edges()) {
             if (edge.isConstrained()) {
-                final List<LatLon> locations = new ArrayList<LatLon>();
-                locations.add(convert(edge.vertex()));
-                locations.add(convert(edge.opposite().vertex()));
-                constrainedEdges.add(new SurfacePolyline(locations));
+                final GreatArc arc = edge.face().opposedEdge(edge.previous().vertex());
+                if (!constrainedEdges.containsKey(arc.opposite())) {
+                    createConstrainedEdge(arc);
+                }
             }
         }
 
+        fireNavMeshUpdated(new ArrayList<SurfacePolygon>(faces.values()), new ArrayList<SurfacePolygon>(),
+                new ArrayList<SurfacePolyline>(constrainedEdges.values()), new ArrayList<SurfacePolyline>());
+    }
+
+    private void fireNavMeshUpdated(final List<SurfacePolygon> addedFaces, final List<SurfacePolygon> removedFaces,
+            final List<SurfacePolyline> addedEdges, final List<SurfacePolyline> removedEdges) {
         for (final NavigationMeshModelListener l : listeners) {
-            l.navMeshChanged(faces, constrainedEdges);
+            l.navMeshUpdated(addedFaces, removedFaces, addedEdges, removedEdges);
         }
     }
 
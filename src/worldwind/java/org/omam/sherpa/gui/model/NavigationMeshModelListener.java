@@ -9,6 +9,7 @@ public interface NavigationMeshModelListener {
 
     void error(final Throwable cause);
 
-    void navMeshChanged(final List<SurfacePolygon> faces, final List<SurfacePolyline> constrainedEdges);
+    void navMeshUpdated(final List<SurfacePolygon> addedFaces, final List<SurfacePolygon> removedFaces,
+            final List<SurfacePolyline> addedConstrainedEdges, final List<SurfacePolyline> removedConstrainedEdges);
 
 }
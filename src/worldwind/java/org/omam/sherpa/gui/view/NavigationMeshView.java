@@ -39,22 +39,27 @@ public final class NavigationMeshView implements NavigationMeshModelListener {
     }
 
     @Override
-    public final void navMeshChanged(final List<SurfacePolygon> faces, final List<SurfacePolyline> constrainedEdges) {
-        nmLayer.removeAllRenderables();
-        for (final SurfacePolygon f : faces) {
+    public final void navMeshUpdated(final List<SurfacePolygon> addedFaces, final List<SurfacePolygon> removedFaces,
+            final List<SurfacePolyline> addedConstrainedEdges, final List<SurfacePolyline> removedConstrainedEdges) {
+        for (final SurfacePolygon f : removedFaces) {
+            nmLayer.removeRenderable(f);
+        }
+        for (final SurfacePolygon f : addedFaces) {
             f.setAttributes(NAV_MESH_ATTRIBUTES);
             nmLayer.addRenderable(f);
         }
 
-        ceLayer.removeAllRenderables();
-        for (final SurfacePolyline ce : constrainedEdges) {
+        for (final SurfacePolyline ce : removedConstrainedEdges) {
+            ceLayer.removeRenderable(ce);
+        }
+        for (final SurfacePolyline ce : addedConstrainedEdges) {
             ce.setAttributes(CE_ATTRIBUTES);
             ceLayer.addRenderable(ce);
         }
 
-        PropertyChangeEvent evt = new PropertyChangeEvent(nmLayer, "content", null, faces);
+        PropertyChangeEvent evt = new PropertyChangeEvent(nmLayer, "content", null, addedFaces);
         nmLayer.firePropertyChange(evt);
-        evt = new PropertyChangeEvent(ceLayer, "content", null, constrainedEdges);
+        evt = new PropertyChangeEvent(ceLayer, "content", null, addedConstrainedEdges);
         ceLayer.firePropertyChange(evt);
     }
 